@@ -0,0 +1,246 @@
+package com.analyzer.event_analyzer.load;
+
+import com.analyzer.event_analyzer.model.Event;
+import com.analyzer.event_analyzer.support.EventFixtures;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generatore di carico a tasso costante (open model) per gli endpoint WebFlux.
+ * <p>
+ * Le richieste partono secondo un calendario fisso e la latenza è misurata dall'istante
+ * di partenza previsto, non da quello effettivo: se il server rallenta, il ritardo
+ * accumulato finisce nell'istogramma invece di abbassare silenziosamente il carico.
+ * Anche le richieste scartate perché il generatore è saturo finiscono nell'istogramma, con
+ * la latenza maturata fino al primo slot libero: altrimenti i percentili nasconderebbero
+ * proprio gli intervalli peggiori (coordinated omission).
+ * Le risposte di errore (429, 503, 5xx...) non entrano nei percentili né nel throughput:
+ * sono riportate a parte per stato, come le richieste scartate.
+ * A parità di {@code --seed} la sequenza di richieste è identica.
+ * <p>
+ * Il rate limit è per utente: con un solo utente l'ingest si ferma a
+ * {@code app.rate-limit.ingest.refill-per-second}. Per misurare il server e non il limite,
+ * distribuire il carico con {@code --users=utente:password,...} oppure avviare l'istanza
+ * con {@code app.rate-limit.enabled=false}.
+ * <p>
+ * Opzioni: {@code --url --rate --duration --warmup --seed --user --password --users
+ * --ingest-ratio --analytics-ratio --max-in-flight --histogram-output}
+ */
+public final class LoadGenerator {
+
+    enum Operation {INGEST, RECENT, ANALYTICS}
+
+    private final Map<String, String> options;
+    private final WebClient webClient;
+    private final List<Credentials> users;
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> successes = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> dropped = new EnumMap<>(Operation.class);
+    // Errori per stato HTTP; 0 = nessuna risposta (connessione, timeout)
+    private final Map<Operation, Map<Integer, AtomicLong>> errors = new EnumMap<>(Operation.class);
+    private final Queue<PlannedRequest> pendingDropped = new ConcurrentLinkedQueue<>();
+
+    private LoadGenerator(Map<String, String> options) {
+        this.options = options;
+        this.users = parseUsers(options);
+        this.webClient = WebClient.builder()
+                .baseUrl(option("url", "http://localhost:8080"))
+                .build();
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3));
+            successes.put(operation, new AtomicLong());
+            dropped.put(operation, new AtomicLong());
+            errors.put(operation, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    public static void main(String[] args) throws FileNotFoundException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int separator = arg.indexOf('=');
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        new LoadGenerator(options).run();
+    }
+
+    private void run() throws FileNotFoundException {
+        int rate = Integer.parseInt(option("rate", "200"));
+        int durationSeconds = Integer.parseInt(option("duration", "30"));
+        int warmupSeconds = Integer.parseInt(option("warmup", "5"));
+        int maxInFlight = Integer.parseInt(option("max-in-flight", "512"));
+        double ingestRatio = Double.parseDouble(option("ingest-ratio", "0.8"));
+        double analyticsRatio = Double.parseDouble(option("analytics-ratio", "0.05"));
+
+        SplittableRandom random = new SplittableRandom(Long.parseLong(option("seed", "42")));
+        EventFixtures fixtures = new EventFixtures(random.nextLong());
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long totalRequests = (long) rate * (warmupSeconds + durationSeconds);
+        long warmupRequests = (long) rate * warmupSeconds;
+        long startNanos = System.nanoTime();
+
+        System.out.printf("Carico: %d req/s per %ds (+%ds warmup) verso %s, %d utenti%n",
+                rate, durationSeconds, warmupSeconds, option("url", "http://localhost:8080"), users.size());
+
+        Flux.interval(Duration.ZERO, Duration.ofNanos(intervalNanos))
+                .take(totalRequests)
+                .map(tick -> {
+                    // Scelta dell'operazione sul thread dell'intervallo: la sequenza resta deterministica
+                    double roll = random.nextDouble();
+                    Operation operation = roll < ingestRatio ? Operation.INGEST
+                            : roll < ingestRatio + analyticsRatio ? Operation.ANALYTICS
+                            : Operation.RECENT;
+                    Event event = fixtures.nextEvent();
+                    event.setTimestamp(null);
+                    return new PlannedRequest(tick, startNanos + tick * intervalNanos, operation, event);
+                })
+                .onBackpressureDrop(pendingDropped::add)
+                .flatMap(request -> execute(request, warmupRequests)
+                        .doFinally(signal -> recordDropped(warmupRequests)), maxInFlight)
+                .blockLast();
+        recordDropped(warmupRequests);
+
+        report(durationSeconds);
+    }
+
+    private Mono<Void> execute(PlannedRequest request, long warmupRequests) {
+        Event event = request.event();
+        WebClient.RequestHeadersSpec<?> spec = switch (request.operation()) {
+            case INGEST -> webClient.method(HttpMethod.POST).uri("/api/events").bodyValue(event);
+            case RECENT -> webClient.get().uri(uri -> uri.path("/api/events/recent")
+                    .queryParam("type", event.getType())
+                    .queryParam("limit", 10)
+                    .build());
+            case ANALYTICS -> webClient.get().uri("/api/analytics/{eventType}?hours=24", event.getType());
+        };
+        // Utenti a rotazione sul tick: la distribuzione resta deterministica
+        Credentials credentials = users.get((int) (request.tick() % users.size()));
+        return spec.headers(headers -> headers.setBasicAuth(credentials.user(), credentials.password()))
+                .retrieve()
+                .toBodilessEntity()
+                .doOnSuccess(ignored -> {
+                    if (request.tick() >= warmupRequests) {
+                        successes.get(request.operation()).incrementAndGet();
+                        record(request);
+                    }
+                })
+                .then()
+                .onErrorResume(error -> {
+                    if (request.tick() >= warmupRequests) {
+                        int status = error instanceof WebClientResponseException response
+                                ? response.getStatusCode().value() : 0;
+                        errors.get(request.operation())
+                                .computeIfAbsent(status, ignored -> new AtomicLong())
+                                .incrementAndGet();
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    private void record(PlannedRequest request) {
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - request.intendedStartNanos());
+        Histogram histogram = histograms.get(request.operation());
+        histogram.recordValue(Math.min(latencyMicros, histogram.getHighestTrackableValue()));
+    }
+
+    /**
+     * Le richieste scartate sarebbero partite al più presto ora, quando si è liberato uno
+     * slot: la loro latenza è almeno il tempo trascorso dalla partenza prevista
+     */
+    private void recordDropped(long warmupRequests) {
+        PlannedRequest request;
+        while ((request = pendingDropped.poll()) != null) {
+            if (request.tick() >= warmupRequests) {
+                dropped.get(request.operation()).incrementAndGet();
+                record(request);
+            }
+        }
+    }
+
+    private void report(int durationSeconds) throws FileNotFoundException {
+        // ok/s conta solo le risposte riuscite; i percentili includono anche le scartate
+        System.out.printf("%n%-10s %10s %10s %10s %10s %10s %10s %10s %10s %8s%n",
+                "operation", "ok", "ok/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "dropped", "errors");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            long ok = successes.get(operation).get();
+            long failed = errors.get(operation).values().stream().mapToLong(AtomicLong::get).sum();
+            System.out.printf("%-10s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f %10d %8d%n",
+                    operation,
+                    ok,
+                    ok / (double) durationSeconds,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0,
+                    dropped.get(operation).get(),
+                    failed);
+        }
+        for (Operation operation : Operation.values()) {
+            errors.get(operation).forEach((status, count) -> System.out.printf("Errori %s %s: %d%n",
+                    operation, status == 0 ? "senza risposta" : "HTTP " + status, count.get()));
+        }
+        if (errors.values().stream().anyMatch(byStatus -> byStatus.containsKey(429))) {
+            System.out.println("Risposte 429: il rate limit per utente ha limitato il carico (vedi --users)");
+        }
+
+        String output = options.get("histogram-output");
+        if (output != null) {
+            try (PrintStream stream = new PrintStream(output)) {
+                for (Operation operation : Operation.values()) {
+                    stream.println("# " + operation);
+                    histograms.get(operation).outputPercentileDistribution(stream, 1000.0);
+                }
+            }
+            System.out.println("Distribuzione percentili scritta in " + output);
+        }
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private static List<Credentials> parseUsers(Map<String, String> options) {
+        String users = options.get("users");
+        if (users == null || users.isBlank()) {
+            return List.of(new Credentials(options.getOrDefault("user", "user"),
+                    options.getOrDefault("password", "password")));
+        }
+        List<Credentials> credentials = new ArrayList<>();
+        for (String entry : users.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("--users richiede utente:password, trovato: " + entry);
+            }
+            credentials.add(new Credentials(entry.substring(0, separator), entry.substring(separator + 1)));
+        }
+        return List.copyOf(credentials);
+    }
+
+    private record PlannedRequest(long tick, long intendedStartNanos, Operation operation, Event event) {}
+
+    private record Credentials(String user, String password) {}
+}
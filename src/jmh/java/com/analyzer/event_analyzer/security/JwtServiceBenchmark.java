@@ -0,0 +1,50 @@
+package com.analyzer.event_analyzer.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+
+/**
+ * Validazione dei token (decodifica Base64 + HMAC-SHA256) per token validi e manomessi.
+ */
+@State(Scope.Thread)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private UserDetails user;
+    private String validToken;
+    private String tamperedToken;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        setField("secret", "benchmark-secret-key-at-least-32-characters");
+        setField("expirationMs", 86_400_000L);
+
+        user = User.withUsername("user").password("password").roles("USER").build();
+        validToken = jwtService.generateToken(user);
+        tamperedToken = validToken.substring(0, validToken.length() - 4) + "AAA=";
+    }
+
+    @Benchmark
+    public Boolean validateValidToken() {
+        return jwtService.validateToken(validToken, user);
+    }
+
+    @Benchmark
+    public Boolean validateTamperedToken() {
+        return jwtService.validateToken(tamperedToken, user);
+    }
+
+    private void setField(String name, Object value) {
+        Field field = ReflectionUtils.findField(JwtService.class, name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, jwtService, value);
+    }
+}
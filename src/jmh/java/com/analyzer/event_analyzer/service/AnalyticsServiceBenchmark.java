@@ -0,0 +1,58 @@
+package com.analyzer.event_analyzer.service;
+
+import com.analyzer.event_analyzer.metrics.EventMetrics;
+import com.analyzer.event_analyzer.model.Event;
+import com.analyzer.event_analyzer.model.EventAnalytics;
+import com.analyzer.event_analyzer.support.EventFixtures;
+import com.analyzer.event_analyzer.support.InMemoryRepositories;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Logica di rollup oraria di {@link AnalyticsService}: raggruppamento per tipo
+ * e conteggio per sorgente, senza accesso a MongoDB.
+ */
+@State(Scope.Thread)
+public class AnalyticsServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    public int eventsPerHour;
+
+    private AnalyticsService analyticsService;
+    private List<Event> events;
+    private Instant periodStart;
+    private Instant periodEnd;
+
+    @Setup
+    public void setUp() {
+        // Il rollup è puro calcolo: isolamento dei carichi e template non servono
+        analyticsService = new AnalyticsService(
+                InMemoryRepositories.analyticsRepository(new ConcurrentHashMap<>()),
+                new EventMetrics(new SimpleMeterRegistry()),
+                null,
+                null);
+
+        periodEnd = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        periodStart = periodEnd.minus(1, ChronoUnit.HOURS);
+        events = new EventFixtures(1).nextEvents(eventsPerHour, periodStart, periodEnd);
+    }
+
+    @Benchmark
+    public List<EventAnalytics> rollupAllTypes() {
+        return events.stream()
+                .collect(Collectors.groupingBy(Event::getType))
+                .entrySet().stream()
+                .map(entry -> analyticsService.rollup(entry.getKey(), entry.getValue(), periodStart, periodEnd))
+                .toList();
+    }
+}
@@ -0,0 +1,77 @@
+package com.analyzer.event_analyzer.service;
+
+import com.analyzer.event_analyzer.metrics.EventMetrics;
+import com.analyzer.event_analyzer.model.Event;
+import com.analyzer.event_analyzer.support.EventFixtures;
+import com.analyzer.event_analyzer.support.InMemoryRedisTemplate;
+import org.bson.types.ObjectId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Serializzazione e lookup di {@link CacheService} su un template Redis in memoria
+ * che usa lo stesso serializzatore JSON della configurazione reale.
+ */
+@State(Scope.Thread)
+public class CacheServiceBenchmark {
+
+    @Param({"100"})
+    public int recentLimit;
+
+    private CacheService cacheService;
+    private RedisSerializationContext.SerializationPair<Event> valuePair;
+    private Event event;
+    private ByteBuffer serialized;
+    private String cachedId;
+
+    @Setup
+    public void setUp() {
+        InMemoryRedisTemplate template = new InMemoryRedisTemplate();
+        cacheService = new CacheService(template, new EventMetrics(new SimpleMeterRegistry()));
+        valuePair = template.getSerializationContext().getValueSerializationPair();
+
+        EventFixtures fixtures = new EventFixtures(7);
+        event = fixtures.nextEvent();
+        event.setId(new ObjectId().toHexString());
+        serialized = valuePair.write(event);
+
+        cachedId = event.getId();
+        cacheService.cacheEvent(event).block();
+        for (int i = 0; i < recentLimit; i++) {
+            cacheService.addToRecentEvents(fixtures.nextEvent()).block();
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer serialize() {
+        return valuePair.write(event);
+    }
+
+    @Benchmark
+    public Event deserialize() {
+        return valuePair.read(serialized.duplicate());
+    }
+
+    @Benchmark
+    public Boolean cacheEvent() {
+        return cacheService.cacheEvent(event).block();
+    }
+
+    @Benchmark
+    public Event getCachedEvent() {
+        return cacheService.getCachedEvent(cachedId).block();
+    }
+
+    @Benchmark
+    public List<Event> getRecentEventsByType() {
+        return cacheService.getRecentEventsByType(event.getType(), 10).collectList().block();
+    }
+}
@@ -0,0 +1,54 @@
+package com.analyzer.event_analyzer.service;
+
+import com.analyzer.event_analyzer.alerting.AlertEngine;
+import com.analyzer.event_analyzer.metrics.EventMetrics;
+import com.analyzer.event_analyzer.model.Event;
+import com.analyzer.event_analyzer.support.EventFixtures;
+import com.analyzer.event_analyzer.storage.EventDictionary;
+import com.analyzer.event_analyzer.support.InMemoryRepositories;
+import com.analyzer.event_analyzer.workload.WorkloadIsolation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Map;
+
+/**
+ * Costo di {@link EventService#saveEvent} (normalizzazione + pipeline reattiva)
+ * con un repository in memoria al posto di MongoDB.
+ */
+@State(Scope.Thread)
+public class EventServiceBenchmark {
+
+    private EventService eventService;
+    private Map<String, Event> store;
+    private EventFixtures fixtures;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = InMemoryRepositories.newEventStore();
+        EventMetrics metrics = new EventMetrics(new SimpleMeterRegistry());
+        eventService = new EventService(InMemoryRepositories.eventRepository(store),
+                metrics,
+                new EventDictionary(null),
+                new AlertEngine(null, metrics),
+                new WorkloadIsolation(new StandardEnvironment(), metrics));
+        fixtures = new EventFixtures(42);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearStore() {
+        store.clear();
+    }
+
+    @Benchmark
+    public Event saveEvent() {
+        Event event = fixtures.nextEvent();
+        event.setTimestamp(null);
+        return eventService.saveEvent(event).block();
+    }
+}
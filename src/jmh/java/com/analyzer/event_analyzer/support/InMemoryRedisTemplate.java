@@ -0,0 +1,117 @@
+package com.analyzer.event_analyzer.support;
+
+import com.analyzer.event_analyzer.config.RedisConfig;
+import com.analyzer.event_analyzer.model.Event;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveListOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Template Redis in-process: i valori passano comunque per il serializzatore
+ * configurato in {@link RedisConfig}, così i benchmark includono il costo
+ * reale di serializzazione/deserializzazione JSON.
+ */
+public class InMemoryRedisTemplate extends ReactiveRedisTemplate<String, Event> {
+
+    private final Map<String, ByteBuffer> values = new ConcurrentHashMap<>();
+    private final Map<String, Deque<ByteBuffer>> lists = new ConcurrentHashMap<>();
+    private final RedisSerializationContext.SerializationPair<Event> valuePair;
+
+    private final ReactiveValueOperations<String, Event> valueOperations;
+    private final ReactiveListOperations<String, Event> listOperations;
+
+    public InMemoryRedisTemplate() {
+        this(unusedConnectionFactory());
+    }
+
+    private InMemoryRedisTemplate(ReactiveRedisConnectionFactory factory) {
+        super(factory, new RedisConfig().reactiveRedisTemplate(factory).getSerializationContext());
+        this.valuePair = getSerializationContext().getValueSerializationPair();
+        this.valueOperations = InMemoryRepositories.proxy(ReactiveValueOperations.class,
+                (method, args) -> switch (method.getName()) {
+                    case "set" -> Mono.fromSupplier(() -> {
+                        values.put((String) args[0], valuePair.write((Event) args[1]));
+                        return true;
+                    });
+                    case "get" -> Mono.justOrEmpty(values.get((String) args[0])).map(this::read);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        this.listOperations = InMemoryRepositories.proxy(ReactiveListOperations.class,
+                (method, args) -> switch (method.getName()) {
+                    case "leftPush" -> Mono.fromSupplier(() -> {
+                        Deque<ByteBuffer> list = lists.computeIfAbsent((String) args[0],
+                                key -> new ConcurrentLinkedDeque<>());
+                        list.addFirst(valuePair.write((Event) args[1]));
+                        return (long) list.size();
+                    });
+                    case "range" -> Flux.defer(() -> Flux.fromIterable(
+                                    slice(lists.get((String) args[0]), (long) args[1], (long) args[2])))
+                            .map(this::read);
+                    case "trim" -> Mono.fromSupplier(() -> {
+                        Deque<ByteBuffer> list = lists.get((String) args[0]);
+                        long keep = (long) args[2] + 1;
+                        while (list != null && list.size() > keep) {
+                            list.pollLast();
+                        }
+                        return true;
+                    });
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Override
+    public ReactiveValueOperations<String, Event> opsForValue() {
+        return valueOperations;
+    }
+
+    @Override
+    public ReactiveListOperations<String, Event> opsForList() {
+        return listOperations;
+    }
+
+    @Override
+    public Mono<Boolean> expire(String key, Duration timeout) {
+        return Mono.just(true);
+    }
+
+    private Event read(ByteBuffer buffer) {
+        return valuePair.read(buffer.duplicate());
+    }
+
+    private static List<ByteBuffer> slice(Deque<ByteBuffer> list, long start, long end) {
+        List<ByteBuffer> result = new ArrayList<>();
+        if (list == null) {
+            return result;
+        }
+        long index = 0;
+        for (ByteBuffer buffer : list) {
+            if (index > end) {
+                break;
+            }
+            if (index >= start) {
+                result.add(buffer);
+            }
+            index++;
+        }
+        return result;
+    }
+
+    private static ReactiveRedisConnectionFactory unusedConnectionFactory() {
+        return InMemoryRepositories.proxy(ReactiveRedisConnectionFactory.class, (method, args) -> {
+            throw new UnsupportedOperationException("Nessuna connessione Redis nei benchmark");
+        });
+    }
+}
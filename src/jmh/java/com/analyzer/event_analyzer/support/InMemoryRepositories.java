@@ -0,0 +1,94 @@
+package com.analyzer.event_analyzer.support;
+
+import com.analyzer.event_analyzer.model.Event;
+import com.analyzer.event_analyzer.model.EventAnalytics;
+import com.analyzer.event_analyzer.repository.EventAnalyticsRepository;
+import com.analyzer.event_analyzer.repository.EventRepository;
+import org.bson.types.ObjectId;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sostituti in-process dei repository MongoDB, usati dai benchmark per misurare
+ * il costo del codice applicativo senza il round-trip verso il database.
+ * Implementano solo i metodi effettivamente chiamati dai servizi.
+ */
+public final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    public static EventRepository eventRepository(Map<String, Event> store) {
+        return proxy(EventRepository.class, (method, args) -> switch (method.getName()) {
+            case "save" -> Mono.fromSupplier(() -> {
+                Event event = (Event) args[0];
+                if (event.getId() == null) {
+                    event.setId(new ObjectId().toHexString());
+                }
+                store.put(event.getId(), event);
+                return event;
+            });
+            case "findById" -> Mono.justOrEmpty(store.get((String) args[0]));
+            case "findAll" -> Flux.fromIterable(store.values());
+            case "count" -> Mono.fromSupplier(() -> (long) store.size());
+            case "findByTypeAndTimestampBetween" -> Flux.fromIterable(store.values())
+                    .filter(event -> Objects.equals(event.getType(), args[0])
+                            && !event.getTimestamp().isBefore((Instant) args[1])
+                            && !event.getTimestamp().isAfter((Instant) args[2]));
+            case "findByPayloadValueGreaterThan" -> Flux.fromIterable(store.values())
+                    .filter(event -> event.getPayload() != null
+                            && event.getPayload().get("value") instanceof Number value
+                            && value.doubleValue() > (double) args[0]);
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    public static EventAnalyticsRepository analyticsRepository(Map<String, EventAnalytics> store) {
+        return proxy(EventAnalyticsRepository.class, (method, args) -> switch (method.getName()) {
+            case "save" -> Mono.fromSupplier(() -> {
+                EventAnalytics analytics = (EventAnalytics) args[0];
+                if (analytics.getId() == null) {
+                    analytics.setId(new ObjectId().toHexString());
+                }
+                store.put(analytics.getId(), analytics);
+                return analytics;
+            });
+            case "findByEventTypeAndPeriodStartGreaterThanEqual" -> Flux.fromIterable(store.values())
+                    .filter(analytics -> Objects.equals(analytics.getEventType(), args[0])
+                            && !analytics.getPeriodStart().isBefore((Instant) args[1]));
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    public static Map<String, Event> newEventStore() {
+        return new ConcurrentHashMap<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T proxy(Class<T> type, RepositoryMethod handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> "InMemory" + type.getSimpleName();
+                };
+            }
+            return handler.invoke(method, args == null ? new Object[0] : args);
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    @FunctionalInterface
+    interface RepositoryMethod {
+        Object invoke(Method method, Object[] args);
+    }
+}
@@ -0,0 +1,192 @@
+package com.analyzer.event_analyzer.alerting;
+
+import com.analyzer.event_analyzer.metrics.EventMetrics;
+import com.analyzer.event_analyzer.model.AlertRule;
+import com.analyzer.event_analyzer.model.Event;
+import com.analyzer.event_analyzer.repository.AlertRuleRepository;
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Motore di alert incrementale: le regole di "alert_rules" sono compilate in contatori su
+ * finestra scorrevole e aggiornate a ogni evento acquisito, senza query per regola.
+ * <p>
+ * Lo stato delle finestre è locale al nodo: con più istanze ogni nodo valuta gli eventi
+ * che riceve. Le regole vengono ricaricate periodicamente per recepire le modifiche fatte
+ * da altri nodi.
+ */
+@Service
+@Slf4j
+public class AlertEngine {
+
+    public static final String ALERT_TRANSITIONS = "eventanalyzer.alerts.transitions";
+
+    private final AlertRuleRepository ruleRepository;
+    private final EventMetrics metrics;
+    private final Deque<AlertFiring> history = new ArrayDeque<>();
+    private final Sinks.Many<AlertFiring> stream = Sinks.many().multicast().directBestEffort();
+    private volatile RuleIndex index = RuleIndex.EMPTY;
+
+    @Value("${app.alerting.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.alerting.history-size:1000}")
+    private int historySize = 1000;
+
+    public AlertEngine(AlertRuleRepository ruleRepository, EventMetrics metrics) {
+        this.ruleRepository = ruleRepository;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            reloadRules();
+        }
+    }
+
+    /**
+     * Valuta le regole che corrispondono a un evento appena acquisito
+     */
+    public void onIngest(Event event) {
+        RuleIndex current = index;
+        if (current.size() == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        boolean failed = event.getStatus() == Event.EventStatus.FAILED;
+        current.forEachMatching(event.getType(), event.getSource(), rule -> publish(rule.onEvent(now, failed)));
+    }
+
+    /**
+     * Valuta le regole di rapporto quando un evento passa a FAILED dopo l'acquisizione
+     */
+    public void onStatusChange(Event event, Event.EventStatus previousStatus) {
+        RuleIndex current = index;
+        if (current.size() == 0 || event.getStatus() != Event.EventStatus.FAILED
+                || previousStatus == Event.EventStatus.FAILED) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        current.forEachMatching(event.getType(), event.getSource(), rule -> publish(rule.onFailure(now)));
+    }
+
+    /**
+     * Chiude gli alert attivi la cui finestra non supera più la soglia anche in assenza di eventi
+     */
+    @Scheduled(fixedDelayString = "${app.alerting.sweep-interval-ms:10000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        index.all().forEach(rule -> publish(rule.evaluate(now)));
+    }
+
+    @Scheduled(fixedDelayString = "${app.alerting.reload-interval-ms:60000}",
+            initialDelayString = "${app.alerting.reload-interval-ms:60000}")
+    public void reloadRules() {
+        if (!enabled) {
+            return;
+        }
+        loadRules().subscribe(
+                count -> log.debug("Regole di alert caricate: {}", count),
+                error -> log.warn("Caricamento delle regole di alert fallito: {}", error.toString()));
+    }
+
+    public Flux<AlertRule> getRules() {
+        return metrics.timeRepository("alertRules.findAll", ruleRepository.findAll());
+    }
+
+    public Mono<AlertRule> saveRule(AlertRule rule) {
+        String error = validate(rule);
+        if (error != null) {
+            return Mono.error(new IllegalArgumentException(error));
+        }
+        return metrics.timeRepository("alertRules.save", ruleRepository.save(rule))
+                .flatMap(saved -> loadRules().thenReturn(saved));
+    }
+
+    public Mono<Void> deleteRule(String id) {
+        return metrics.timeRepository("alertRules.deleteById", ruleRepository.deleteById(id))
+                .then(loadRules())
+                .then();
+    }
+
+    /**
+     * Ultime notifiche, dalla più recente
+     */
+    public List<AlertFiring> getRecentFirings(int limit) {
+        List<AlertFiring> result = new ArrayList<>(Math.min(limit, historySize));
+        synchronized (history) {
+            Iterator<AlertFiring> iterator = history.descendingIterator();
+            while (iterator.hasNext() && result.size() < limit) {
+                result.add(iterator.next());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stream delle notifiche: i sottoscrittori lenti perdono elementi invece di rallentare l'ingest
+     */
+    public Flux<AlertFiring> getFiringStream() {
+        return stream.asFlux();
+    }
+
+    private Mono<Integer> loadRules() {
+        return getRules()
+                .filter(AlertRule::isEnabled)
+                .filter(rule -> validate(rule) == null)
+                .collectList()
+                .map(rules -> {
+                    index = RuleIndex.build(rules, index);
+                    return rules.size();
+                });
+    }
+
+    private void publish(AlertFiring firing) {
+        if (firing == null) {
+            return;
+        }
+        // Emissione sotto lock: il sink non accetta emissioni concorrenti
+        synchronized (history) {
+            history.addLast(firing);
+            while (history.size() > historySize) {
+                history.removeFirst();
+            }
+            stream.tryEmitNext(firing);
+        }
+        Counter.builder(ALERT_TRANSITIONS)
+                .description("Cambi di stato delle regole di alert")
+                .tag("state", firing.state().name())
+                .register(metrics.getRegistry())
+                .increment();
+        log.info("Alert {} {}: valore {} (soglia {})", firing.ruleName(), firing.state(),
+                firing.value(), firing.threshold());
+    }
+
+    static String validate(AlertRule rule) {
+        if (rule.getCondition() == null) {
+            return "condition obbligatoria (COUNT o FAILURE_RATIO)";
+        }
+        if (rule.getWindowSeconds() <= 0) {
+            return "windowSeconds deve essere positivo";
+        }
+        if (rule.getThreshold() < 0
+                || rule.getCondition() == AlertRule.Condition.FAILURE_RATIO && rule.getThreshold() >= 1) {
+            return "threshold non valida per la condizione " + rule.getCondition();
+        }
+        return null;
+    }
+}
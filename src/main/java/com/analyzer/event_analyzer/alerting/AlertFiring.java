@@ -0,0 +1,14 @@
+package com.analyzer.event_analyzer.alerting;
+
+import java.time.Instant;
+
+/**
+ * Cambio di stato di una regola: FIRING quando la soglia viene superata, RESOLVED quando rientra
+ */
+public record AlertFiring(String ruleId, String ruleName, State state, double value, double threshold,
+                          long eventsInWindow, Instant timestamp) {
+
+    public enum State {
+        FIRING, RESOLVED
+    }
+}
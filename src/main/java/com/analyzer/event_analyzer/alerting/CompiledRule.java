@@ -0,0 +1,65 @@
+package com.analyzer.event_analyzer.alerting;
+
+import com.analyzer.event_analyzer.model.AlertRule;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regola compilata: stato incrementale della finestra e stato di attivazione.
+ * Le notifiche sono edge-triggered, cioè emesse solo al cambio di stato.
+ */
+final class CompiledRule {
+
+    private final AlertRule rule;
+    private final SlidingWindowCounter window;
+    private boolean firing;
+
+    CompiledRule(AlertRule rule) {
+        this.rule = rule;
+        this.window = new SlidingWindowCounter(TimeUnit.SECONDS.toMillis(rule.getWindowSeconds()));
+    }
+
+    AlertRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Registra un evento acquisito che soddisfa i filtri della regola
+     */
+    synchronized AlertFiring onEvent(long nowMillis, boolean failed) {
+        window.add(nowMillis, 1, failed ? 1 : 0);
+        return evaluate(nowMillis);
+    }
+
+    /**
+     * Registra il passaggio a FAILED di un evento già conteggiato all'acquisizione
+     */
+    synchronized AlertFiring onFailure(long nowMillis) {
+        if (rule.getCondition() != AlertRule.Condition.FAILURE_RATIO) {
+            return null;
+        }
+        window.add(nowMillis, 0, 1);
+        return evaluate(nowMillis);
+    }
+
+    /**
+     * Rivaluta la regola senza nuovi eventi, per chiudere gli alert la cui finestra si è svuotata
+     */
+    synchronized AlertFiring evaluate(long nowMillis) {
+        long total = window.total(nowMillis);
+        double value = switch (rule.getCondition()) {
+            case COUNT -> total;
+            case FAILURE_RATIO -> total == 0 ? 0.0 : Math.min(1.0, (double) window.failed(nowMillis) / total);
+        };
+        boolean breached = value > rule.getThreshold()
+                && (rule.getCondition() == AlertRule.Condition.COUNT || total >= rule.getMinEvents());
+        if (breached == firing) {
+            return null;
+        }
+        firing = breached;
+        return new AlertFiring(rule.getId(), rule.getName(),
+                breached ? AlertFiring.State.FIRING : AlertFiring.State.RESOLVED,
+                value, rule.getThreshold(), total, Instant.ofEpochMilli(nowMillis));
+    }
+}
@@ -0,0 +1,77 @@
+package com.analyzer.event_analyzer.alerting;
+
+import com.analyzer.event_analyzer.model.AlertRule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Indice immutabile delle regole per (tipo, sorgente), con null come jolly: ogni evento
+ * richiede quattro lookup e visita solo le regole che lo riguardano, qualunque sia il
+ * numero totale di regole.
+ */
+final class RuleIndex {
+
+    static final RuleIndex EMPTY = new RuleIndex(Map.of(), Map.of());
+
+    private final Map<RuleKey, List<CompiledRule>> byKey;
+    private final Map<String, CompiledRule> byId;
+
+    private RuleIndex(Map<RuleKey, List<CompiledRule>> byKey, Map<String, CompiledRule> byId) {
+        this.byKey = byKey;
+        this.byId = byId;
+    }
+
+    /**
+     * Costruisce l'indice riusando lo stato delle regole rimaste invariate rispetto al precedente
+     */
+    static RuleIndex build(Collection<AlertRule> rules, RuleIndex previous) {
+        Map<RuleKey, List<CompiledRule>> byKey = new HashMap<>();
+        Map<String, CompiledRule> byId = new HashMap<>();
+        for (AlertRule rule : rules) {
+            CompiledRule existing = previous.byId.get(rule.getId());
+            CompiledRule compiled = existing != null && existing.getRule().equals(rule)
+                    ? existing
+                    : new CompiledRule(rule);
+            byId.put(rule.getId(), compiled);
+            byKey.computeIfAbsent(new RuleKey(rule.getType(), rule.getSource()), key -> new ArrayList<>())
+                    .add(compiled);
+        }
+        byKey.replaceAll((key, list) -> List.copyOf(list));
+        return new RuleIndex(Map.copyOf(byKey), Map.copyOf(byId));
+    }
+
+    void forEachMatching(String type, String source, Consumer<CompiledRule> action) {
+        visit(new RuleKey(type, source), action);
+        if (source != null) {
+            visit(new RuleKey(type, null), action);
+        }
+        if (type != null) {
+            visit(new RuleKey(null, source), action);
+            if (source != null) {
+                visit(new RuleKey(null, null), action);
+            }
+        }
+    }
+
+    Collection<CompiledRule> all() {
+        return byId.values();
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    private void visit(RuleKey key, Consumer<CompiledRule> action) {
+        List<CompiledRule> rules = byKey.get(key);
+        if (rules != null) {
+            rules.forEach(action);
+        }
+    }
+
+    private record RuleKey(String type, String source) {}
+}
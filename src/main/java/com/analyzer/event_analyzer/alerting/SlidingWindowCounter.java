@@ -0,0 +1,54 @@
+package com.analyzer.event_analyzer.alerting;
+
+import java.util.Arrays;
+
+/**
+ * Contatori su finestra scorrevole suddivisa in bucket di durata fissa: aggiornamento
+ * e lettura costano O(bucket), indipendentemente dal numero di eventi. La finestra
+ * ha la granularità di un bucket. Non thread-safe: la sincronizzazione è del chiamante.
+ */
+final class SlidingWindowCounter {
+
+    static final int BUCKETS = 30;
+
+    private final long bucketMillis;
+    private final long[] epochs = new long[BUCKETS];
+    private final long[] totals = new long[BUCKETS];
+    private final long[] failures = new long[BUCKETS];
+
+    SlidingWindowCounter(long windowMillis) {
+        this.bucketMillis = Math.max(1, windowMillis / BUCKETS);
+        Arrays.fill(epochs, -1);
+    }
+
+    void add(long nowMillis, long total, long failed) {
+        long epoch = nowMillis / bucketMillis;
+        int slot = (int) (epoch % BUCKETS);
+        if (epochs[slot] != epoch) {
+            epochs[slot] = epoch;
+            totals[slot] = 0;
+            failures[slot] = 0;
+        }
+        totals[slot] += total;
+        failures[slot] += failed;
+    }
+
+    long total(long nowMillis) {
+        return sum(totals, nowMillis);
+    }
+
+    long failed(long nowMillis) {
+        return sum(failures, nowMillis);
+    }
+
+    private long sum(long[] values, long nowMillis) {
+        long oldest = nowMillis / bucketMillis - BUCKETS;
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (epochs[i] > oldest) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+}
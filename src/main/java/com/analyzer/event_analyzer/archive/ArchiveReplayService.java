@@ -0,0 +1,197 @@
+package com.analyzer.event_analyzer.archive;
+
+import com.analyzer.event_analyzer.config.WorkloadMongoTemplates;
+import com.analyzer.event_analyzer.metrics.EventMetrics;
+import com.analyzer.event_analyzer.model.EventAnalytics;
+import com.analyzer.event_analyzer.service.AnalyticsService;
+import com.analyzer.event_analyzer.workload.WorkloadClass;
+import com.analyzer.event_analyzer.workload.WorkloadIsolation;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ricostruisce gli {@link EventAnalytics} orari di intervalli storici a partire dai
+ * segmenti di archivio, senza interrogare la collezione "events".
+ * I segmenti sono elaborati in parallelo su tutti i core; il rollup è lo stesso
+ * di {@link AnalyticsService}, così un cambio di logica si applica anche al passato.
+ * Le scritture dei rollup passano dalla classe di carico rollup, come il calcolo periodico.
+ */
+@Service
+@Slf4j
+public class ArchiveReplayService {
+
+    // Colonne necessarie al rollup: le altre non vengono nemmeno decompresse
+    private static final Set<SegmentColumn> ROLLUP_COLUMNS =
+            EnumSet.of(SegmentColumn.TIMESTAMP, SegmentColumn.TYPE, SegmentColumn.SOURCE);
+
+    private final EventArchiver archiver;
+    private final AnalyticsService analyticsService;
+    private final WorkloadIsolation workloads;
+    private final ReactiveMongoTemplate rollupTemplate;
+    private final EventMetrics metrics;
+    private final Scheduler replayScheduler;
+    private final int parallelism;
+
+    public ArchiveReplayService(EventArchiver archiver,
+                                AnalyticsService analyticsService,
+                                WorkloadIsolation workloads,
+                                WorkloadMongoTemplates workloadTemplates,
+                                EventMetrics metrics) {
+        this.archiver = archiver;
+        this.analyticsService = analyticsService;
+        this.workloads = workloads;
+        this.rollupTemplate = workloadTemplates.forWorkload(WorkloadClass.ROLLUP);
+        this.metrics = metrics;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+        this.replayScheduler = Schedulers.newParallel("archive-replay", parallelism);
+    }
+
+    /**
+     * Ricalcola i rollup orari nell'intervallo (esteso alle ore intere). Sono prodotte solo
+     * le ore interamente coperte dai segmenti: un'ora archiviata a metà darebbe conteggi parziali.
+     * Con {@code persist} i rollup di quelle ore sono sostituiti con un upsert per tipo e ora, e
+     * quelli dei tipi senza eventi nell'archivio vengono eliminati.
+     */
+    public Flux<EventAnalytics> replay(Instant from, Instant to, boolean persist) {
+        Instant start = from.truncatedTo(ChronoUnit.HOURS);
+        Instant end = to.truncatedTo(ChronoUnit.HOURS).equals(to)
+                ? to
+                : to.truncatedTo(ChronoUnit.HOURS).plus(1, ChronoUnit.HOURS);
+
+        return Mono.fromCallable(() -> archiver.listSegments(start, end))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(segments -> {
+                    List<Instant> hours = coveredHours(segments, start, end);
+                    Set<Instant> covered = new HashSet<>(hours);
+
+                    Flux<EventAnalytics> rollups = Flux.fromIterable(segments)
+                            .parallel(parallelism)
+                            .runOn(replayScheduler)
+                            .flatMap(segment -> Flux.fromIterable(rollupSegment(segment, start, end)))
+                            .sequential();
+
+                    // Un'ora può essere divisa tra più segmenti se la partizione non è oraria
+                    return rollups
+                            .collectMultimap(analytics -> analytics.getEventType() + "|" + analytics.getPeriodStart())
+                            .flatMapMany(groups -> {
+                                List<EventAnalytics> merged = groups.values().stream()
+                                        .map(this::merge)
+                                        .filter(analytics -> covered.contains(analytics.getPeriodStart()))
+                                        .toList();
+                                // Il permesso è occupato solo per le scritture, non per la lettura dei segmenti
+                                return persist
+                                        ? workloads.runMany(WorkloadClass.ROLLUP, () -> persist(merged, hours))
+                                        : Flux.fromIterable(merged);
+                            });
+                });
+    }
+
+    private Flux<EventAnalytics> persist(List<EventAnalytics> rollups, List<Instant> hours) {
+        String workload = WorkloadClass.ROLLUP.key();
+        Map<Instant, Set<String>> replayedTypes = new ConcurrentHashMap<>();
+        Flux<EventAnalytics> upserted = Flux.fromIterable(rollups)
+                .concatMap(analytics -> metrics.timeWorkload(workload, "analytics.upsert",
+                        analyticsService.upsertRollup(rollupTemplate, analytics)))
+                .doOnNext(analytics -> replayedTypes
+                        .computeIfAbsent(analytics.getPeriodStart(), hour -> ConcurrentHashMap.newKeySet())
+                        .add(analytics.getEventType()));
+
+        // Dopo gli upsert: nelle ore ricalcolate restano solo i tipi presenti nell'archivio
+        Mono<Long> staleRemoved = Flux.fromIterable(hours)
+                .concatMap(hour -> metrics.timeWorkload(workload, "analytics.removeStale",
+                        rollupTemplate.remove(Query.query(Criteria.where("periodStart").is(hour)
+                                        .and("eventType").nin(replayedTypes.getOrDefault(hour, Set.of()))),
+                                EventAnalytics.class)))
+                .reduce(0L, (removed, result) -> removed + result.getDeletedCount())
+                .doOnNext(removed -> log.info("Replay: {} ore ricalcolate, {} rollup obsoleti eliminati",
+                        hours.size(), removed));
+
+        return upserted.concatWith(staleRemoved.then(Mono.<EventAnalytics>empty()));
+    }
+
+    // Ore dell'intervallo interamente coperte da segmenti contigui (ordinati e non sovrapposti)
+    private static List<Instant> coveredHours(List<SegmentHeader> segments, Instant from, Instant to) {
+        List<Instant> hours = new ArrayList<>();
+        for (Instant hour = from; hour.isBefore(to); hour = hour.plus(1, ChronoUnit.HOURS)) {
+            Instant coveredUntil = hour;
+            for (SegmentHeader segment : segments) {
+                if (!segment.partitionStart().isAfter(coveredUntil) && segment.partitionEnd().isAfter(coveredUntil)) {
+                    coveredUntil = segment.partitionEnd();
+                }
+            }
+            if (!coveredUntil.isBefore(hour.plus(1, ChronoUnit.HOURS))) {
+                hours.add(hour);
+            }
+        }
+        return hours;
+    }
+
+    // Contatori aggiornati mentre si leggono le colonne: gli eventi non vengono conservati
+    private Collection<EventAnalytics> rollupSegment(SegmentHeader segment, Instant from, Instant to) {
+        Map<Instant, Map<String, EventAnalytics>> rollupsByHour = new HashMap<>();
+        try {
+            long read = EventSegmentReader.open(segment.file()).forEach(ROLLUP_COLUMNS, event -> {
+                Instant timestamp = event.getTimestamp();
+                // Come il calcolo periodico: gli eventi senza tipo non hanno rollup
+                if (event.getType() == null || timestamp.isBefore(from) || !timestamp.isBefore(to)) {
+                    return;
+                }
+                Instant hour = timestamp.truncatedTo(ChronoUnit.HOURS);
+                EventAnalytics analytics = rollupsByHour
+                        .computeIfAbsent(hour, key -> new HashMap<>())
+                        .computeIfAbsent(event.getType(), type ->
+                                analyticsService.emptyRollup(type, hour, hour.plus(1, ChronoUnit.HOURS)));
+                analyticsService.accumulate(analytics, event);
+            });
+            log.debug("Replay di {}: {} eventi letti", segment.file(), read);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<EventAnalytics> result = new ArrayList<>();
+        rollupsByHour.values().forEach(byType -> result.addAll(byType.values()));
+        return result;
+    }
+
+    private EventAnalytics merge(Collection<EventAnalytics> parts) {
+        EventAnalytics merged = null;
+        for (EventAnalytics part : parts) {
+            if (merged == null) {
+                merged = part;
+                continue;
+            }
+            merged.setCount(merged.getCount() + part.getCount());
+            EventAnalytics target = merged;
+            part.getCountBySource().forEach((source, count) ->
+                    target.getCountBySource().merge(source, count, Long::sum));
+        }
+        return merged;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        replayScheduler.dispose();
+    }
+}
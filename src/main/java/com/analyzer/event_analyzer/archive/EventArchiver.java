@@ -0,0 +1,209 @@
+package com.analyzer.event_analyzer.archive;
+
+import com.analyzer.event_analyzer.config.WorkloadMongoTemplates;
+import com.analyzer.event_analyzer.metrics.EventMetrics;
+import com.analyzer.event_analyzer.model.Event;
+import com.analyzer.event_analyzer.storage.EventDictionary;
+import com.analyzer.event_analyzer.workload.WorkloadClass;
+import com.analyzer.event_analyzer.workload.WorkloadIsolation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Esporta le partizioni temporali chiuse della collezione "events" in segmenti
+ * colonnari compressi su disco locale, un file per partizione.
+ * <p>
+ * Le scansioni sono lavoro in background: passano dalla classe di carico rollup,
+ * con il suo pool di connessioni e il suo limite di concorrenza.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventArchiver {
+
+    private static final int BLOCK_SIZE = 16384;
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final WorkloadMongoTemplates workloadTemplates;
+    private final WorkloadIsolation workloads;
+    private final EventDictionary eventDictionary;
+    private final EventMetrics metrics;
+
+    @Value("${app.archive.directory:archive}")
+    private String directory;
+
+    @Value("${app.archive.partition:PT1H}")
+    private Duration partition;
+
+    // Margine dopo la fine della partizione per gli eventi in ritardo
+    @Value("${app.archive.close-delay:PT10M}")
+    private Duration closeDelay;
+
+    @Value("${app.archive.enabled:false}")
+    private boolean scheduledArchiving;
+
+    @Value("${app.archive.lookback-partitions:24}")
+    private int lookbackPartitions;
+
+    /**
+     * Archivia le partizioni chiuse comprese nell'intervallo, una alla volta per
+     * non caricare MongoDB; salvo overwrite sono saltate le partizioni che si
+     * sovrappongono a un segmento esistente, anche se scritto con un'altra durata
+     */
+    public Flux<Path> archiveRange(Instant from, Instant to, boolean overwrite) {
+        return Mono.fromCallable(() -> {
+                    Instant closedBefore = Instant.now().minus(closeDelay);
+                    Instant first = partitionStartOf(from);
+                    List<SegmentHeader> existing = overwrite ? List.of() : readSegments(first, to);
+                    List<Instant> partitions = new ArrayList<>();
+                    for (Instant start = first; start.isBefore(to); start = start.plus(partition)) {
+                        Instant partitionStart = start;
+                        Instant partitionEnd = start.plus(partition);
+                        if (!partitionEnd.isAfter(closedBefore)
+                                && existing.stream().noneMatch(segment -> segment.overlaps(partitionStart, partitionEnd))) {
+                            partitions.add(partitionStart);
+                        }
+                    }
+                    return partitions;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(Flux::fromIterable)
+                .concatMap(this::archivePartition);
+    }
+
+    /**
+     * Archivia una singola partizione, leggendo gli eventi in ordine di timestamp
+     */
+    public Mono<Path> archivePartition(Instant partitionStart) {
+        Instant partitionEnd = partitionStart.plus(partition);
+        Path target = segmentPath(partitionStart);
+        Query query = Query.query(Criteria.where("timestamp").gte(partitionStart).lt(partitionEnd))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp"));
+
+        // Un codice di dizionario sconosciuto ripete l'intera partizione con un nuovo temporaneo
+        return workloads.run(WorkloadClass.ROLLUP, () -> eventDictionary.retryOnUnknownCode(Mono.using(
+                        () -> {
+                            Files.createDirectories(target.getParent());
+                            return new EventSegmentWriter(target, partitionStart, partitionEnd);
+                        },
+                        writer -> metrics.timeWorkload(WorkloadClass.ROLLUP.key(), "events.findByTimestampRange",
+                                        workloadTemplates.forWorkload(WorkloadClass.ROLLUP).find(query, Event.class))
+                                .buffer(BLOCK_SIZE)
+                                // La scrittura su file è bloccante: fuori dagli event loop
+                                .publishOn(Schedulers.boundedElastic())
+                                .doOnNext(block -> append(writer, block))
+                                .then(Mono.fromCallable(() -> {
+                                    writer.commit();
+                                    log.info("Archiviata partizione {} ({} eventi) in {}",
+                                            partitionStart, writer.getRowCount(), target);
+                                    return target;
+                                })),
+                        EventArchiver::closeQuietly)
+                .subscribeOn(Schedulers.boundedElastic())));
+    }
+
+    /**
+     * Segmenti presenti su disco le cui partizioni intersecano l'intervallo, in ordine di
+     * inizio. Gli estremi vengono dall'header di ogni segmento; segmenti sovrapposti (ad
+     * esempio dopo un cambio di {@code app.archive.partition}) sono un errore, perché i loro
+     * eventi verrebbero contati due volte.
+     */
+    public List<SegmentHeader> listSegments(Instant from, Instant to) throws IOException {
+        List<SegmentHeader> segments = readSegments(from, to);
+        for (int i = 1; i < segments.size(); i++) {
+            SegmentHeader previous = segments.get(i - 1);
+            SegmentHeader current = segments.get(i);
+            if (current.partitionStart().isBefore(previous.partitionEnd())) {
+                throw new IOException("Segmenti sovrapposti: " + previous.file() + " e " + current.file());
+            }
+        }
+        return segments;
+    }
+
+    @Scheduled(fixedRateString = "${app.archive.interval-ms:600000}")
+    public void archiveClosedPartitions() {
+        if (!scheduledArchiving) {
+            return;
+        }
+        Instant now = Instant.now();
+        archiveRange(now.minus(partition.multipliedBy(lookbackPartitions)), now, false)
+                .subscribe(
+                        path -> { },
+                        error -> log.error("Archiviazione delle partizioni fallita", error));
+    }
+
+    public Instant partitionStartOf(Instant instant) {
+        long size = partition.toMillis();
+        return Instant.ofEpochMilli(Math.floorDiv(instant.toEpochMilli(), size) * size);
+    }
+
+    Path segmentPath(Instant partitionStart) {
+        return Paths.get(directory).resolve(SEGMENT_PREFIX + partitionStart.toEpochMilli() + SEGMENT_SUFFIX);
+    }
+
+    // Un header illeggibile esclude il segmento: le sue ore risultano non coperte
+    private List<SegmentHeader> readSegments(Instant from, Instant to) throws IOException {
+        Path root = Paths.get(directory);
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        List<SegmentHeader> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(root)) {
+            for (Path file : files.filter(EventArchiver::isSegment).toList()) {
+                try {
+                    SegmentHeader header = EventSegmentReader.readHeader(file);
+                    if (header.overlaps(from, to)) {
+                        segments.add(header);
+                    }
+                } catch (IOException e) {
+                    log.warn("Segmento ignorato: {}", e.getMessage());
+                }
+            }
+        }
+        segments.sort(Comparator.comparing(SegmentHeader::partitionStart));
+        return segments;
+    }
+
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static void append(EventSegmentWriter writer, List<Event> block) {
+        try {
+            writer.append(block);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void closeQuietly(EventSegmentWriter writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Chiusura del segmento fallita", e);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.analyzer.event_analyzer.archive;
+
+import com.analyzer.event_analyzer.model.Event;
+import org.bson.Document;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+
+/**
+ * Legge un segmento mappandolo in memoria. Solo le colonne richieste vengono
+ * decompresse e decodificate; le altre sono saltate usando le lunghezze nel blocco.
+ */
+public class EventSegmentReader {
+
+    private final Path file;
+    private final MappedByteBuffer mapped;
+    private final Instant partitionStart;
+    private final Instant partitionEnd;
+
+    private EventSegmentReader(Path file, MappedByteBuffer mapped) throws IOException {
+        this.file = file;
+        this.mapped = mapped;
+
+        SegmentHeader header = parseHeader(file, mapped);
+        this.partitionStart = header.partitionStart();
+        this.partitionEnd = header.partitionEnd();
+    }
+
+    public static EventSegmentReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // La mappatura resta valida anche dopo la chiusura del canale
+            return new EventSegmentReader(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Legge solo l'header, senza mappare il file
+     */
+    public static SegmentHeader readHeader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SegmentCodec.HEADER_BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+            return parseHeader(file, header.flip());
+        }
+    }
+
+    private static SegmentHeader parseHeader(Path file, ByteBuffer header) throws IOException {
+        if (header.limit() < SegmentCodec.HEADER_BYTES || header.getInt(0) != SegmentCodec.MAGIC) {
+            throw new IOException("Segmento non valido: " + file);
+        }
+        short version = header.getShort(Integer.BYTES);
+        if (version != SegmentCodec.VERSION) {
+            throw new IOException("Versione di segmento non supportata (" + version + "): " + file);
+        }
+        return new SegmentHeader(file,
+                Instant.ofEpochMilli(header.getLong(Integer.BYTES + Short.BYTES)),
+                Instant.ofEpochMilli(header.getLong(Integer.BYTES + Short.BYTES + Long.BYTES)));
+    }
+
+    public Instant getPartitionStart() {
+        return partitionStart;
+    }
+
+    public Instant getPartitionEnd() {
+        return partitionEnd;
+    }
+
+    /**
+     * Scorre tutti gli eventi popolando solo i campi delle colonne richieste.
+     *
+     * @return numero di eventi letti
+     */
+    public long forEach(Set<SegmentColumn> columns, Consumer<Event> consumer) throws IOException {
+        ByteBuffer buffer = mapped.duplicate().position(SegmentCodec.HEADER_BYTES);
+        long total = 0;
+
+        while (buffer.hasRemaining()) {
+            int rowCount = buffer.getInt();
+            Map<SegmentColumn, ByteBuffer> decoded = new EnumMap<>(SegmentColumn.class);
+
+            for (SegmentColumn column : SegmentColumn.values()) {
+                int uncompressedLength = buffer.getInt();
+                int compressedLength = buffer.getInt();
+                if (columns.contains(column)) {
+                    ByteBuffer compressed = buffer.slice(buffer.position(), compressedLength);
+                    try {
+                        decoded.put(column, SegmentCodec.decompress(compressed, uncompressedLength));
+                    } catch (DataFormatException e) {
+                        throw new IOException("Colonna " + column + " corrotta in " + file, e);
+                    }
+                }
+                buffer.position(buffer.position() + compressedLength);
+            }
+
+            try {
+                decodeBlock(rowCount, decoded, consumer);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Blocco non valido in " + file, e);
+            }
+            total += rowCount;
+        }
+        return total;
+    }
+
+    private void decodeBlock(int rowCount, Map<SegmentColumn, ByteBuffer> columns, Consumer<Event> consumer) {
+        ByteBuffer ids = columns.get(SegmentColumn.ID);
+        ByteBuffer timestamps = columns.get(SegmentColumn.TIMESTAMP);
+        String[] types = readDictionary(columns.get(SegmentColumn.TYPE), rowCount);
+        String[] sources = readDictionary(columns.get(SegmentColumn.SOURCE), rowCount);
+        String[] userIds = readDictionary(columns.get(SegmentColumn.USER_ID), rowCount);
+        ByteBuffer statuses = columns.get(SegmentColumn.STATUS);
+        ByteBuffer correlationIds = columns.get(SegmentColumn.CORRELATION_ID);
+        ByteBuffer payloadValues = columns.get(SegmentColumn.PAYLOAD_VALUE);
+        ByteBuffer payloads = columns.get(SegmentColumn.PAYLOAD);
+
+        long previousMillis = partitionStart.toEpochMilli();
+        for (int row = 0; row < rowCount; row++) {
+            Event event = new Event();
+            if (ids != null) {
+                event.setId(SegmentCodec.readString(ids));
+            }
+            if (timestamps != null) {
+                previousMillis += SegmentCodec.readZigZag(timestamps);
+                event.setTimestamp(Instant.ofEpochMilli(previousMillis));
+            }
+            if (types != null) {
+                event.setType(types[row]);
+            }
+            if (sources != null) {
+                event.setSource(sources[row]);
+            }
+            if (userIds != null) {
+                event.setUserId(userIds[row]);
+            }
+            if (statuses != null) {
+                event.setStatus(SegmentCodec.statusOf(statuses.get()));
+            }
+            if (correlationIds != null) {
+                event.setCorrelationId(SegmentCodec.readString(correlationIds));
+            }
+            double payloadValue = payloadValues != null ? payloadValues.getDouble() : Double.NaN;
+            if (payloads != null) {
+                String json = SegmentCodec.readString(payloads);
+                event.setPayload(json == null ? null : Document.parse(json));
+            } else if (!Double.isNaN(payloadValue)) {
+                event.setPayload(Map.of("value", payloadValue));
+            }
+            consumer.accept(event);
+        }
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer, int rowCount) {
+        if (buffer == null) {
+            return null;
+        }
+        String[] entries = new String[(int) SegmentCodec.readVarLong(buffer) + 1];
+        for (int i = 1; i < entries.length; i++) {
+            entries[i] = SegmentCodec.readString(buffer);
+        }
+        String[] values = new String[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            values[row] = entries[(int) SegmentCodec.readVarLong(buffer)];
+        }
+        return values;
+    }
+}
@@ -0,0 +1,167 @@
+package com.analyzer.event_analyzer.archive;
+
+import com.analyzer.event_analyzer.model.Event;
+import org.bson.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Scrive un segmento colonnare compresso per una partizione temporale chiusa.
+ * <p>
+ * Gli eventi arrivano a blocchi ({@link #append}) e vengono scritti subito, così la
+ * memoria usata dipende dalla dimensione del blocco e non da quella della partizione.
+ * Il file viene scritto in un temporaneo e reso visibile solo da {@link #commit()}:
+ * un segmento presente su disco è sempre completo.
+ */
+public class EventSegmentWriter implements Closeable {
+
+    private final Path target;
+    private final Path temporary;
+    private final FileChannel channel;
+    private final long partitionStartMillis;
+    private long rowCount;
+    private boolean committed;
+
+    public EventSegmentWriter(Path target, Instant partitionStart, Instant partitionEnd) throws IOException {
+        this.target = target;
+        this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        this.partitionStartMillis = partitionStart.toEpochMilli();
+        this.channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(SegmentCodec.HEADER_BYTES);
+        header.putInt(SegmentCodec.MAGIC)
+                .putShort(SegmentCodec.VERSION)
+                .putLong(partitionStartMillis)
+                .putLong(partitionEnd.toEpochMilli())
+                .flip();
+        writeFully(header);
+    }
+
+    /**
+     * Scrive un blocco di eventi
+     */
+    public void append(List<Event> events) throws IOException {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        ByteBuffer count = ByteBuffer.allocate(Integer.BYTES).putInt(events.size()).flip();
+        writeFully(count);
+
+        for (SegmentColumn column : SegmentColumn.values()) {
+            SegmentCodec.ColumnBuffer buffer = encode(column, events);
+            byte[] compressed = SegmentCodec.compress(buffer.array(), buffer.size());
+
+            ByteBuffer lengths = ByteBuffer.allocate(2 * Integer.BYTES)
+                    .putInt(buffer.size())
+                    .putInt(compressed.length)
+                    .flip();
+            writeFully(lengths);
+            writeFully(ByteBuffer.wrap(compressed));
+        }
+        rowCount += events.size();
+    }
+
+    /**
+     * Forza i dati su disco e rende visibile il segmento
+     */
+    public void commit() throws IOException {
+        channel.force(true);
+        channel.close();
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            channel.close();
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private SegmentCodec.ColumnBuffer encode(SegmentColumn column, List<Event> events) {
+        SegmentCodec.ColumnBuffer buffer = new SegmentCodec.ColumnBuffer();
+        switch (column) {
+            case ID -> events.forEach(event -> buffer.writeString(event.getId()));
+            case TIMESTAMP -> {
+                long previous = partitionStartMillis;
+                for (Event event : events) {
+                    long millis = event.getTimestamp() == null ? partitionStartMillis : event.getTimestamp().toEpochMilli();
+                    buffer.writeZigZag(millis - previous);
+                    previous = millis;
+                }
+            }
+            case TYPE -> writeDictionary(buffer, events, Event::getType);
+            case SOURCE -> writeDictionary(buffer, events, Event::getSource);
+            case USER_ID -> writeDictionary(buffer, events, Event::getUserId);
+            case STATUS -> events.forEach(event -> buffer.writeByte(SegmentCodec.statusCode(event.getStatus())));
+            case CORRELATION_ID -> events.forEach(event -> buffer.writeString(event.getCorrelationId()));
+            case PAYLOAD_VALUE -> events.forEach(event -> buffer.writeDouble(payloadValue(event)));
+            case PAYLOAD -> events.forEach(event -> buffer.writeString(
+                    event.getPayload() == null ? null : new Document(event.getPayload()).toJson()));
+        }
+        return buffer;
+    }
+
+    // Dizionario locale al blocco: voci distinte in ordine di apparizione, poi un codice per riga
+    private static void writeDictionary(SegmentCodec.ColumnBuffer buffer, List<Event> events,
+                                        Function<Event, String> getter) {
+        Map<String, Integer> codes = new HashMap<>();
+        int[] rows = new int[events.size()];
+        SegmentCodec.ColumnBuffer entries = new SegmentCodec.ColumnBuffer();
+
+        for (int i = 0; i < rows.length; i++) {
+            String value = getter.apply(events.get(i));
+            if (value == null) {
+                rows[i] = 0;
+                continue;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size() + 1;
+                codes.put(value, code);
+                entries.writeString(value);
+            }
+            rows[i] = code;
+        }
+
+        buffer.writeVarLong(codes.size());
+        for (int i = 0; i < entries.size(); i++) {
+            buffer.writeByte(entries.array()[i]);
+        }
+        for (int code : rows) {
+            buffer.writeVarLong(code);
+        }
+    }
+
+    private static double payloadValue(Event event) {
+        if (event.getPayload() != null && event.getPayload().get("value") instanceof Number value) {
+            return value.doubleValue();
+        }
+        return Double.NaN;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.analyzer.event_analyzer.archive;
+
+import com.analyzer.event_analyzer.model.Event;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Formato binario dei segmenti di archivio.
+ * <pre>
+ * header : magic(int) version(short) partitionStart(long ms) partitionEnd(long ms)
+ * blocco : rowCount(int) poi, per ogni {@link SegmentColumn}:
+ *          uncompressedLength(int) compressedLength(int) dati deflate
+ * </pre>
+ * Dentro le colonne interi e lunghezze sono varint, i timestamp sono delta zig-zag
+ * rispetto alla riga precedente e le stringhe ripetitive sono codificate a dizionario.
+ * Lo stato è un codice esplicito ({@link #statusCode}), non l'ordinale dell'enum.
+ */
+final class SegmentCodec {
+
+    static final int MAGIC = 0x45565347; // "EVSG"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = Integer.BYTES + Short.BYTES + 2 * Long.BYTES;
+
+    private SegmentCodec() {
+    }
+
+    /**
+     * Codice dello stato nel formato: fisso, così riordinare o aggiungere costanti a
+     * {@link Event.EventStatus} non cambia il significato dei segmenti già scritti. 0 è null.
+     */
+    static int statusCode(Event.EventStatus status) {
+        if (status == null) {
+            return 0;
+        }
+        return switch (status) {
+            case RECEIVED -> 1;
+            case PROCESSING -> 2;
+            case PROCESSED -> 3;
+            case FAILED -> 4;
+        };
+    }
+
+    /**
+     * Stato corrispondente al codice; {@code null} per 0, eccezione per codici sconosciuti
+     */
+    static Event.EventStatus statusOf(int code) {
+        return switch (code) {
+            case 0 -> null;
+            case 1 -> Event.EventStatus.RECEIVED;
+            case 2 -> Event.EventStatus.PROCESSING;
+            case 3 -> Event.EventStatus.PROCESSED;
+            case 4 -> Event.EventStatus.FAILED;
+            default -> throw new IllegalArgumentException("Codice di stato sconosciuto: " + code);
+        };
+    }
+
+    static byte[] compress(byte[] input, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input, 0, length);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(chunk);
+                out.write(chunk, 0, written);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static ByteBuffer decompress(ByteBuffer input, int uncompressedLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            byte[] output = new byte[uncompressedLength];
+            int offset = 0;
+            while (offset < uncompressedLength) {
+                int read = inflater.inflate(output, offset, uncompressedLength - offset);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                offset += read;
+            }
+            if (offset != uncompressedLength) {
+                throw new DataFormatException("Colonna troncata: " + offset + "/" + uncompressedLength + " byte");
+            }
+            return ByteBuffer.wrap(output);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static long readZigZag(ByteBuffer buffer) {
+        long encoded = readVarLong(buffer);
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = (int) readVarLong(buffer);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Buffer di scrittura di una colonna, cresce secondo necessità
+     */
+    static final class ColumnBuffer {
+        private byte[] bytes = new byte[1024];
+        private int size;
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeDouble(double value) {
+            ensure(Double.BYTES);
+            long bits = Double.doubleToRawLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (bits >>> shift);
+            }
+        }
+
+        // Lunghezza + 1, così 0 rappresenta null
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(encoded.length + 1L);
+            ensure(encoded.length);
+            System.arraycopy(encoded, 0, bytes, size, encoded.length);
+            size += encoded.length;
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
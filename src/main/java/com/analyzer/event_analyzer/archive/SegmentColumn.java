@@ -0,0 +1,17 @@
+package com.analyzer.event_analyzer.archive;
+
+/**
+ * Colonne di un segmento, nell'ordine in cui sono scritte in ogni blocco.
+ * Il lettore decomprime solo le colonne richieste e salta le altre.
+ */
+public enum SegmentColumn {
+    ID,
+    TIMESTAMP,
+    TYPE,
+    SOURCE,
+    USER_ID,
+    STATUS,
+    CORRELATION_ID,
+    PAYLOAD_VALUE,
+    PAYLOAD
+}
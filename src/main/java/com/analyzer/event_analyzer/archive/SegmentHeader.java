@@ -0,0 +1,15 @@
+package com.analyzer.event_analyzer.archive;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Segmento su disco con gli estremi della partizione letti dal suo header,
+ * indipendenti dalla configurazione corrente di {@code app.archive.partition}
+ */
+public record SegmentHeader(Path file, Instant partitionStart, Instant partitionEnd) {
+
+    public boolean overlaps(Instant from, Instant to) {
+        return partitionStart.isBefore(to) && partitionEnd.isAfter(from);
+    }
+}
@@ -0,0 +1,36 @@
+package com.analyzer.event_analyzer.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Componente "mongoIndexes" dell'health: OUT_OF_SERVICE finché gli indici critici non
+ * sono pronti, DOWN se uno di essi è in conflitto o la sua costruzione fallisce. È incluso
+ * nel gruppo readiness, quindi il traffico arriva solo a indici costruiti.
+ */
+@Component("mongoIndexesHealthIndicator")
+@RequiredArgsConstructor
+public class IndexReadinessIndicator implements ReactiveHealthIndicator {
+
+    private final MongoIndexConfig mongoIndexConfig;
+
+    @Override
+    public Mono<Health> health() {
+        Health.Builder builder;
+        if (mongoIndexConfig.isCriticalReady()) {
+            builder = Health.up();
+        } else if (mongoIndexConfig.isCriticalFailed()) {
+            builder = Health.down();
+        } else {
+            builder = Health.status(Status.OUT_OF_SERVICE);
+        }
+        return Mono.just(builder
+                .withDetail("indexes", mongoIndexConfig.getStates())
+                .withDetail("findings", mongoIndexConfig.getFindings())
+                .build());
+    }
+}
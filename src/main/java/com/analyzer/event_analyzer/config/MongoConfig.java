@@ -1,23 +1,104 @@
 package com.analyzer.event_analyzer.config;
 
-import com.mongodb.reactivestreams.client.MongoClient;
-import com.mongodb.reactivestreams.client.MongoClients;
+import com.analyzer.event_analyzer.storage.CompactEventConversions;
+import com.analyzer.event_analyzer.storage.CompactFieldNamingStrategy;
+import com.analyzer.event_analyzer.storage.EventDictionary;
+import com.analyzer.event_analyzer.workload.WorkloadClass;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.mongodb.DefaultMongoConnectionPoolTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mapping.model.FieldNamingStrategy;
 import org.springframework.data.mongodb.config.AbstractReactiveMongoConfiguration;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions.MongoConverterConfigurationAdapter;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @EnableReactiveMongoRepositories(basePackages = "com.analyzer.event_analyzer.repository")
 public class MongoConfig extends AbstractReactiveMongoConfiguration {
 
+    static final String CONNECTION_STRING = "mongodb://localhost:27017";
+    static final String DATABASE_NAME = "event_analytics";
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    // Risolto in modo lazy: il dizionario dipende dalla database factory definita qui
+    @Autowired
+    private ObjectProvider<EventDictionary> eventDictionary;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${app.mongo.compact.enabled:false}")
+    private boolean compactEncoding;
+
     @Override
     protected String getDatabaseName() {
-        return "event_analytics";
+        return DATABASE_NAME;
+    }
+
+    @Override
+    protected void configureClientSettings(MongoClientSettings.Builder builder) {
+        // Client principale: repository e query interattive, con il pool riservato all'ingest
+        configureClient(builder, meterRegistry.getObject(), WorkloadClass.INGEST,
+                environment.getProperty("app.workload.ingest.mongo-pool-size", Integer.class,
+                        WorkloadClass.INGEST.defaultMongoPoolSize()),
+                environment.getProperty("app.workload.ingest.mongo-max-wait-ms", Long.class, 2000L));
+    }
+
+    /**
+     * Impostazioni comuni ai client MongoDB: i listener Micrometer misurano durata dei
+     * comandi e stato del pool (attese incluse), con il tag della classe di carico
+     */
+    static void configureClient(MongoClientSettings.Builder builder, MeterRegistry registry,
+                                WorkloadClass workload, int poolSize, long maxWaitMs) {
+        DefaultMongoConnectionPoolTagsProvider poolTags = new DefaultMongoConnectionPoolTagsProvider();
+        builder.applyConnectionString(new ConnectionString(CONNECTION_STRING))
+                .addCommandListener(new MongoMetricsCommandListener(registry))
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(poolSize)
+                        .maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(registry,
+                                event -> Tags.of("workload", workload.key()).and(poolTags.connectionPoolTags(event)))));
+    }
+
+    @Override
+    protected FieldNamingStrategy fieldNamingStrategy() {
+        return compactEncoding ? new CompactFieldNamingStrategy() : super.fieldNamingStrategy();
+    }
+
+    @Override
+    protected void configureConverters(MongoConverterConfigurationAdapter adapter) {
+        if (compactEncoding) {
+            CompactEventConversions.configure(adapter, eventDictionary);
+        }
     }
 
     @Bean
-    public MongoClient mongoClient() {
-        return MongoClients.create("mongodb://localhost:27017");
+    @Override
+    public MappingMongoConverter mappingMongoConverter(MongoCustomConversions customConversions,
+                                                       MongoMappingContext mappingContext) {
+        MappingMongoConverter converter = super.mappingMongoConverter(customConversions, mappingContext);
+        if (compactEncoding) {
+            // Event non ha sottoclassi: il campo "_class" in ogni documento è solo peso
+            converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+        }
+        return converter;
     }
 }
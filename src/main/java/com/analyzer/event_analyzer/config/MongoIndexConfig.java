@@ -1,21 +1,57 @@
 package com.analyzer.event_analyzer.config;
 
+import com.analyzer.event_analyzer.model.Event;
+import com.analyzer.event_analyzer.model.EventAnalytics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
-import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.index.IndexDefinition;
-import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
 
 import jakarta.annotation.PostConstruct;
 import org.bson.Document;
-import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Bootstrap degli indici MongoDB: confronta gli indici desiderati con quelli esistenti,
+ * costruisce in parallelo e in background solo quelli mancanti e tiene traccia dello
+ * stato. L'applicazione si avvia subito; la readiness resta negata finché gli indici
+ * critici non sono pronti (vedi {@link IndexReadinessIndicator}).
+ */
 @Configuration
+@Slf4j
 public class MongoIndexConfig {
 
+    private static final Duration MAX_RETRY_BACKOFF = Duration.ofSeconds(30);
+
+    // Indici desiderati, con i nomi delle proprietà: il mapping li traduce nei nomi dei campi
+    private static final List<IndexSpec> DESIRED_INDEXES = List.of(
+            // Critico: rollup orario e archiviazione filtrano solo per intervallo di timestamp
+            IndexSpec.of(Event.class, true, "timestamp", Sort.Direction.DESC),
+            IndexSpec.of(Event.class, true, "type", Sort.Direction.ASC, "timestamp", Sort.Direction.DESC),
+            IndexSpec.of(Event.class, true, "source", Sort.Direction.ASC, "status", Sort.Direction.ASC),
+            IndexSpec.of(Event.class, false, "payload.value", Sort.Direction.ASC),
+            // Unico: i rollup sono sostituiti con un upsert per (eventType, periodStart)
+            IndexSpec.unique(EventAnalytics.class, true, "eventType", Sort.Direction.ASC, "periodStart", Sort.Direction.ASC));
+
     private final ReactiveMongoTemplate mongoTemplate;
+    private final Map<String, IndexState> states = new ConcurrentHashMap<>();
+    // Per collezione: i bootstrap delle entità girano in parallelo
+    private final Map<String, List<IndexFinding>> findings = new ConcurrentHashMap<>();
 
     @Autowired
     public MongoIndexConfig(ReactiveMongoTemplate mongoTemplate) {
@@ -24,51 +60,247 @@ public class MongoIndexConfig {
 
     @PostConstruct
     public void initIndexes() {
-        // Ottieni ReactiveIndexOperations invece di IndexOperations
-        ReactiveIndexOperations eventIndexOps = mongoTemplate.indexOps("events");
-        ReactiveIndexOperations analyticsIndexOps = mongoTemplate.indexOps("event_analytics");
+        // Non blocca l'avvio: il risultato è esposto tramite health/readiness
+        bootstrapIndexes().subscribe(
+                null,
+                error -> log.error("Bootstrap degli indici interrotto", error),
+                () -> log.info("Bootstrap degli indici completato: {}", states));
+    }
+
+    Mono<Void> bootstrapIndexes() {
+        DESIRED_INDEXES.forEach(spec -> states.put(describe(spec), IndexState.PENDING));
+        return Flux.fromIterable(DESIRED_INDEXES.stream().map(IndexSpec::entity).distinct().toList())
+                .flatMap(this::bootstrap)
+                .then();
+    }
+
+    /**
+     * True quando tutti gli indici critici sono presenti
+     */
+    public boolean isCriticalReady() {
+        return DESIRED_INDEXES.stream()
+                .filter(IndexSpec::critical)
+                .allMatch(spec -> states.get(describe(spec)) == IndexState.READY);
+    }
+
+    /**
+     * True se un indice critico è in conflitto con uno esistente o se l'ultimo tentativo
+     * di costruirlo è fallito (i tentativi proseguono in background)
+     */
+    public boolean isCriticalFailed() {
+        return DESIRED_INDEXES.stream()
+                .filter(IndexSpec::critical)
+                .anyMatch(spec -> states.get(describe(spec)) == IndexState.FAILED);
+    }
+
+    public Map<String, IndexState> getStates() {
+        return Map.copyOf(states);
+    }
+
+    /**
+     * Indici ridondanti o non gestiti rilevati sull'ultimo confronto
+     */
+    public List<IndexFinding> getFindings() {
+        return findings.values().stream().flatMap(List::stream).toList();
+    }
+
+    private Mono<Void> bootstrap(Class<?> entity) {
+        List<IndexSpec> desired = DESIRED_INDEXES.stream().filter(spec -> spec.entity() == entity).toList();
+
+        return mongoTemplate.indexOps(entity).getIndexInfo()
+                .collectList()
+                .retryWhen(retry("lettura degli indici di " + entity.getSimpleName()))
+                .flatMap(existing -> {
+                    List<IndexSpec> missing = new ArrayList<>();
+                    List<IndexFinding> conflicts = new ArrayList<>();
+                    for (IndexSpec spec : desired) {
+                        IndexInfo match = existing.stream()
+                                .filter(info -> keysOf(info).equals(mappedKeys(spec)))
+                                .findFirst()
+                                .orElse(null);
+                        if (match == null) {
+                            missing.add(spec);
+                        } else if (spec.unique() && !match.isUnique()) {
+                            // Stesse chiavi ma non unico: MongoDB non accetta entrambi, va eliminato a mano
+                            conflicts.add(new IndexFinding(collectionOf(entity), match.getName(), null,
+                                    "non unico: va eliminato per creare l'indice unico " + describe(spec)));
+                            states.put(describe(spec), IndexState.FAILED);
+                        } else {
+                            states.put(describe(spec), IndexState.READY);
+                        }
+                    }
+                    reportFindings(entity, existing, desired, conflicts);
+
+                    // Tutti i mancanti in parallelo: MongoDB li costruisce in modo indipendente
+                    return Flux.fromIterable(missing)
+                            .flatMap(this::build, Math.max(1, missing.size()))
+                            .then();
+                });
+    }
 
-        // Creazione indici per eventi
-        createTimestampIndex(eventIndexOps);
-        createTypeTimestampIndex(eventIndexOps);
-        createSourceStatusIndex(eventIndexOps);
-        createPayloadValueIndex(eventIndexOps);
+    private Mono<String> build(IndexSpec spec) {
+        String description = describe(spec);
+        long start = System.nanoTime();
+        states.put(description, IndexState.BUILDING);
 
-        // Creazione indici per analytics
-        createEventTypePeriodIndex(analyticsIndexOps);
+        Mono<Void> prepare = spec.unique() ? removeDuplicates(spec) : Mono.empty();
+        return prepare.then(mongoTemplate.indexOps(spec.entity()).ensureIndex(definitionOf(spec)))
+                .retryWhen(retry("creazione dell'indice " + description)
+                        .doBeforeRetry(signal -> states.put(description, IndexState.FAILED)))
+                .doOnNext(name -> {
+                    states.put(description, IndexState.READY);
+                    log.info("Indice {} ({}) pronto in {} ms", name, description,
+                            Duration.ofNanos(System.nanoTime() - start).toMillis());
+                });
     }
 
-    private void createTimestampIndex(ReactiveIndexOperations indexOps) {
-        Index index = new Index().on("timestamp", Sort.Direction.DESC);
-        indexOps.ensureIndex(index).subscribe();
+    private RetryBackoffSpec retry(String operation) {
+        return Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(MAX_RETRY_BACKOFF)
+                .doBeforeRetry(signal -> log.warn("Tentativo {} di {} fallito: {}",
+                        signal.totalRetries() + 1, operation, signal.failure().toString()));
     }
 
-    private void createTypeTimestampIndex(ReactiveIndexOperations indexOps) {
-        Document compoundIdx = new Document();
-        compoundIdx.put("type", 1);
-        compoundIdx.put("timestamp", -1);
-        IndexDefinition indexDefinition = new CompoundIndexDefinition(compoundIdx);
-        indexOps.ensureIndex(indexDefinition).subscribe();
+    /**
+     * Prima di un indice unico elimina i documenti duplicati sulle sue chiavi, tenendo il più
+     * recente per {@code _id}: altrimenti la costruzione fallirebbe. Usato solo per collezioni
+     * ricalcolabili (i rollup), dove i duplicati sono copie dello stesso periodo.
+     */
+    private Mono<Void> removeDuplicates(IndexSpec spec) {
+        Document groupKeys = new Document();
+        List<String> fields = fieldsOf(mappedKeys(spec));
+        for (int i = 0; i < fields.size(); i++) {
+            groupKeys.put("k" + i, "$" + fields.get(i));
+        }
+        List<Document> pipeline = List.of(
+                new Document("$sort", new Document("_id", -1)),
+                new Document("$group", new Document("_id", groupKeys)
+                        .append("ids", new Document("$push", "$_id"))
+                        .append("count", new Document("$sum", 1))),
+                new Document("$match", new Document("count", new Document("$gt", 1))));
+
+        return mongoTemplate.getCollection(collectionOf(spec.entity()))
+                .flatMapMany(collection -> Flux.from(collection.aggregate(pipeline).allowDiskUse(true))
+                        .concatMap(group -> {
+                            List<Object> ids = group.getList("ids", Object.class);
+                            return Mono.from(collection.deleteMany(
+                                    new Document("_id", new Document("$in", ids.subList(1, ids.size())))));
+                        }))
+                .reduce(0L, (removed, result) -> removed + result.getDeletedCount())
+                .doOnNext(removed -> {
+                    if (removed > 0) {
+                        log.warn("Rimossi {} duplicati da {} prima dell'indice unico", removed, describe(spec));
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Segnala gli indici il cui prefisso è coperto da un altro indice e quelli non dichiarati
+     * a campo singolo su un campo che compare in un indice composto (coperti solo per le query
+     * che filtrano anche sui campi iniziali), oltre agli indici non dichiarati qui. Un indice
+     * a campo singolo dichiarato serve query che non filtrano sugli altri campi: non è ridondante.
+     */
+    private void reportFindings(Class<?> entity, List<IndexInfo> existing, List<IndexSpec> desired,
+                                List<IndexFinding> conflicts) {
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        existing.stream()
+                .filter(info -> !"_id_".equals(info.getName()))
+                .forEach(info -> indexes.put(info.getName(), keysOf(info)));
+        desired.forEach(spec -> indexes.putIfAbsent(describe(spec), mappedKeys(spec)));
+
+        List<List<String>> desiredKeys = desired.stream().map(this::mappedKeys).toList();
+        List<IndexFinding> result = new ArrayList<>(conflicts);
+
+        indexes.forEach((name, keys) -> {
+            if (!keys.isEmpty() && !desiredKeys.contains(keys)) {
+                result.add(new IndexFinding(collectionOf(entity), name, null, "non dichiarato in MongoIndexConfig"));
+            }
+            indexes.forEach((otherName, otherKeys) -> {
+                if (name.equals(otherName) || otherKeys.size() <= keys.size() || keys.isEmpty()) {
+                    return;
+                }
+                if (otherKeys.subList(0, keys.size()).equals(keys)) {
+                    result.add(new IndexFinding(collectionOf(entity), name, otherName,
+                            "prefisso di un indice composto: ridondante"));
+                } else if (keys.size() == 1 && !desiredKeys.contains(keys)
+                        && fieldsOf(otherKeys).contains(fieldsOf(keys).get(0))) {
+                    result.add(new IndexFinding(collectionOf(entity), name, otherName,
+                            "campo contenuto in un indice composto: ridondante per le query che filtrano anche sui campi iniziali"));
+                }
+            });
+        });
+
+        findings.put(collectionOf(entity), List.copyOf(result));
+        result.forEach(finding -> log.info("Indice {}.{}: {}{}", finding.collection(), finding.index(),
+                finding.reason(), finding.coveredBy() == null ? "" : " (" + finding.coveredBy() + ")"));
+    }
+
+    private static List<String> fieldsOf(List<String> keys) {
+        return keys.stream().map(key -> key.substring(0, key.lastIndexOf(':'))).toList();
+    }
+
+    private IndexDefinition definitionOf(IndexSpec spec) {
+        Document keys = new Document();
+        spec.keys().forEach((property, direction) -> keys.put(property, direction == Sort.Direction.ASC ? 1 : -1));
+        CompoundIndexDefinition definition = new CompoundIndexDefinition(keys);
+        return spec.unique() ? definition.unique() : definition;
     }
 
-    private void createSourceStatusIndex(ReactiveIndexOperations indexOps) {
-        Document compoundIdx = new Document();
-        compoundIdx.put("source", 1);
-        compoundIdx.put("status", 1);
-        IndexDefinition indexDefinition = new CompoundIndexDefinition(compoundIdx);
-        indexOps.ensureIndex(indexDefinition).subscribe();
+    /**
+     * Chiavi nella forma "campo:direzione", in ordine, con i nomi dei campi come salvati
+     * su MongoDB (diversi dalle proprietà con la codifica compatta)
+     */
+    private List<String> mappedKeys(IndexSpec spec) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(spec.entity());
+        List<String> mapped = new ArrayList<>();
+        spec.keys().forEach((path, direction) -> {
+            int dot = path.indexOf('.');
+            String head = dot < 0 ? path : path.substring(0, dot);
+            String field = entity.getRequiredPersistentProperty(head).getFieldName();
+            mapped.add((dot < 0 ? field : field + path.substring(dot)) + ":" + direction);
+        });
+        return mapped;
     }
 
-    private void createPayloadValueIndex(ReactiveIndexOperations indexOps) {
-        Index index = new Index().on("payload.value", Sort.Direction.ASC);
-        indexOps.ensureIndex(index).subscribe();
+    private static List<String> keysOf(IndexInfo info) {
+        return info.getIndexFields().stream()
+                .map(field -> field.getKey() + ":"
+                        + (field.getDirection() == null ? Sort.Direction.ASC : field.getDirection()))
+                .toList();
     }
 
-    private void createEventTypePeriodIndex(ReactiveIndexOperations indexOps) {
-        Document compoundIdx = new Document();
-        compoundIdx.put("eventType", 1);
-        compoundIdx.put("periodStart", -1);
-        IndexDefinition indexDefinition = new CompoundIndexDefinition(compoundIdx);
-        indexOps.ensureIndex(indexDefinition).subscribe();
+    private String collectionOf(Class<?> entity) {
+        return mongoTemplate.getCollectionName(entity);
+    }
+
+    private String describe(IndexSpec spec) {
+        return collectionOf(spec.entity()) + spec.keys();
+    }
+
+    public enum IndexState {
+        PENDING, BUILDING, READY, FAILED
+    }
+
+    public record IndexFinding(String collection, String index, String coveredBy, String reason) {}
+
+    record IndexSpec(Class<?> entity, boolean critical, boolean unique, Map<String, Sort.Direction> keys) {
+
+        static IndexSpec of(Class<?> entity, boolean critical, Object... keysAndDirections) {
+            return new IndexSpec(entity, critical, false, keyMap(keysAndDirections));
+        }
+
+        static IndexSpec unique(Class<?> entity, boolean critical, Object... keysAndDirections) {
+            return new IndexSpec(entity, critical, true, keyMap(keysAndDirections));
+        }
+
+        private static Map<String, Sort.Direction> keyMap(Object... keysAndDirections) {
+            Map<String, Sort.Direction> keys = new LinkedHashMap<>();
+            for (int i = 0; i < keysAndDirections.length; i += 2) {
+                keys.put((String) keysAndDirections[i], (Sort.Direction) keysAndDirections[i + 1]);
+            }
+            return keys;
+        }
     }
-}
\ No newline at end of file
+}
@@ -33,15 +33,19 @@ public class SecurityConfig {
                 .authorizeExchange(exchanges -> exchanges
                         // API pubbliche
                         .pathMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
-                        .pathMatchers("/actuator/health", "/actuator/info").permitAll()
+                        .pathMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
 
                         // API che richiedono autenticazione
                         .pathMatchers(HttpMethod.POST, "/api/events").authenticated()
                         .pathMatchers(HttpMethod.GET, "/api/events/**").authenticated()
                         .pathMatchers(HttpMethod.GET, "/api/analytics/**").authenticated()
+                        .pathMatchers(HttpMethod.GET, "/api/alerts/**").authenticated()
+                        .pathMatchers(HttpMethod.GET, "/api/reports/**").authenticated()
 
                         // API solo admin
                         .pathMatchers("/actuator/**").hasRole("ADMIN")
+                        .pathMatchers("/api/admin/**").hasRole("ADMIN")
+                        .pathMatchers("/api/alerts/**").hasRole("ADMIN")
                         .anyExchange().authenticated()
                 )
                 .httpBasic(httpBasic -> httpBasic
@@ -0,0 +1,67 @@
+package com.analyzer.event_analyzer.config;
+
+import com.analyzer.event_analyzer.workload.WorkloadClass;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Template MongoDB per classe di carico. Rollup e report usano client separati con pool
+ * propri e più piccoli, così non possono esaurire le connessioni dell'ingest; il
+ * converter (e quindi il mapping, codifica compatta inclusa) è condiviso.
+ * <p>
+ * Non sono registrati come bean per non rendere ambiguo il template principale.
+ */
+@Component
+@Slf4j
+public class WorkloadMongoTemplates implements DisposableBean {
+
+    private final Map<WorkloadClass, ReactiveMongoTemplate> templates = new EnumMap<>(WorkloadClass.class);
+    private final Map<WorkloadClass, MongoClient> clients = new EnumMap<>(WorkloadClass.class);
+
+    public WorkloadMongoTemplates(ReactiveMongoTemplate reactiveMongoTemplate,
+                                  MappingMongoConverter mappingMongoConverter,
+                                  MeterRegistry meterRegistry,
+                                  Environment environment) {
+        templates.put(WorkloadClass.INGEST, reactiveMongoTemplate);
+
+        for (WorkloadClass workload : WorkloadClass.values()) {
+            if (workload == WorkloadClass.INGEST) {
+                continue;
+            }
+            String prefix = "app.workload." + workload.key() + ".";
+            int poolSize = environment.getProperty(prefix + "mongo-pool-size", Integer.class,
+                    workload.defaultMongoPoolSize());
+            long maxWaitMs = environment.getProperty(prefix + "mongo-max-wait-ms", Long.class, 30000L);
+
+            MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                    .applicationName("event-analyzer-" + workload.key());
+            MongoConfig.configureClient(settings, meterRegistry, workload, poolSize, maxWaitMs);
+            MongoClient client = MongoClients.create(settings.build());
+            clients.put(workload, client);
+            templates.put(workload, new ReactiveMongoTemplate(
+                    new SimpleReactiveMongoDatabaseFactory(client, MongoConfig.DATABASE_NAME), mappingMongoConverter));
+            log.info("Client MongoDB per la classe {}: pool di {} connessioni", workload.key(), poolSize);
+        }
+    }
+
+    public ReactiveMongoTemplate forWorkload(WorkloadClass workload) {
+        return templates.get(workload);
+    }
+
+    @Override
+    public void destroy() {
+        clients.values().forEach(MongoClient::close);
+    }
+}
@@ -0,0 +1,61 @@
+package com.analyzer.event_analyzer.controller;
+
+import com.analyzer.event_analyzer.alerting.AlertEngine;
+import com.analyzer.event_analyzer.alerting.AlertFiring;
+import com.analyzer.event_analyzer.model.AlertRule;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/alerts")
+@RequiredArgsConstructor
+public class AlertController {
+    private final AlertEngine alertEngine;
+
+    @GetMapping("/rules")
+    public Flux<AlertRule> getRules() {
+        return alertEngine.getRules();
+    }
+
+    @PostMapping("/rules")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<AlertRule> createRule(@RequestBody AlertRule rule) {
+        rule.setId(null);
+        return save(rule);
+    }
+
+    @PutMapping("/rules/{id}")
+    public Mono<AlertRule> updateRule(@PathVariable String id, @RequestBody AlertRule rule) {
+        rule.setId(id);
+        return save(rule);
+    }
+
+    @DeleteMapping("/rules/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteRule(@PathVariable String id) {
+        return alertEngine.deleteRule(id);
+    }
+
+    @GetMapping("/firings")
+    public List<AlertFiring> getFirings(@RequestParam(defaultValue = "100") int limit) {
+        return alertEngine.getRecentFirings(limit);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<AlertFiring> streamFirings() {
+        return alertEngine.getFiringStream();
+    }
+
+    private Mono<AlertRule> save(AlertRule rule) {
+        return alertEngine.saveRule(rule)
+                .onErrorMap(IllegalArgumentException.class,
+                        error -> new ResponseStatusException(HttpStatus.BAD_REQUEST, error.getMessage()));
+    }
+}
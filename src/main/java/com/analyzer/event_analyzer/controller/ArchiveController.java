@@ -0,0 +1,37 @@
+package com.analyzer.event_analyzer.controller;
+
+import com.analyzer.event_analyzer.archive.ArchiveReplayService;
+import com.analyzer.event_analyzer.archive.EventArchiver;
+import com.analyzer.event_analyzer.model.EventAnalytics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/admin/archive")
+@RequiredArgsConstructor
+public class ArchiveController {
+    private final EventArchiver archiver;
+    private final ArchiveReplayService replayService;
+
+    @PostMapping
+    public Flux<String> archive(@RequestParam Instant from,
+                                @RequestParam Instant to,
+                                @RequestParam(defaultValue = "false") boolean overwrite) {
+        return archiver.archiveRange(from, to, overwrite)
+                .map(Path::toString);
+    }
+
+    @PostMapping("/replay")
+    public Flux<EventAnalytics> replay(@RequestParam Instant from,
+                                       @RequestParam Instant to,
+                                       @RequestParam(defaultValue = "true") boolean persist) {
+        return replayService.replay(from, to, persist);
+    }
+}
@@ -0,0 +1,23 @@
+package com.analyzer.event_analyzer.controller;
+
+import com.analyzer.event_analyzer.service.EventAggregationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+public class ReportController {
+    private final EventAggregationService aggregationService;
+
+    @GetMapping("/complete")
+    public Mono<Map<String, Object>> getCompleteReport(@RequestParam(defaultValue = "7") int days) {
+        return aggregationService.generateCompleteAnalyticsReport(days);
+    }
+}
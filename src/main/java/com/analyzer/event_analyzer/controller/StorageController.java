@@ -0,0 +1,22 @@
+package com.analyzer.event_analyzer.controller;
+
+import com.analyzer.event_analyzer.storage.CompactEncodingMigrator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/admin/storage")
+@RequiredArgsConstructor
+public class StorageController {
+    private final CompactEncodingMigrator migrator;
+
+    @PostMapping("/compact-migration")
+    public Mono<CompactEncodingMigrator.MigrationResult> migrateToCompactEncoding(
+            @RequestParam(defaultValue = "1000") int batchSize) {
+        return migrator.migrate(batchSize);
+    }
+}
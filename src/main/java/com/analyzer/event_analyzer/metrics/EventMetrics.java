@@ -0,0 +1,289 @@
+package com.analyzer.event_analyzer.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Metriche Micrometer dei percorsi critici: chiamate ai repository, pipeline di
+ * aggregazione, cache, ingest ed esecuzioni schedulate.
+ * <p>
+ * I meter vengono creati una sola volta per operazione ed esito, per cui il costo per chiamata
+ * si riduce a un lookup in mappa, un {@link Timer.Sample} e un paio di operazioni atomiche.
+ */
+@Component
+public class EventMetrics {
+
+    public static final String REPOSITORY_CALLS = "eventanalyzer.repository.calls";
+    public static final String CACHE_CALLS = "eventanalyzer.cache.calls";
+    public static final String AGGREGATION_PIPELINES = "eventanalyzer.aggregation.pipeline";
+    public static final String SCHEDULER_RUNS = "eventanalyzer.scheduler.run";
+    public static final String CACHE_LOOKUPS = "eventanalyzer.cache.lookups";
+    public static final String CACHE_HIT_RATIO = "eventanalyzer.cache.hit.ratio";
+    public static final String EVENTS_INGESTED = "eventanalyzer.events.ingested";
+    public static final String PIPELINE_IN_FLIGHT = "eventanalyzer.pipeline.inflight";
+    public static final String WORKLOAD_CALLS = "eventanalyzer.workload.calls";
+    public static final String WORKLOAD_IN_FLIGHT = "eventanalyzer.workload.calls.inflight";
+
+    // Limite ai valori del tag "type" per non far esplodere la cardinalità delle serie
+    private static final int MAX_EVENT_TYPE_TAGS = 100;
+    private static final String OTHER_EVENT_TYPE = "other";
+
+    private final MeterRegistry registry;
+    private final MeterFamily repositoryCalls;
+    private final MeterFamily cacheCalls;
+    private final MeterFamily aggregationPipelines;
+    private final MeterFamily schedulerRuns;
+    private final Map<String, MeterFamily> workloadCalls = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, CacheStats> cacheStats = new ConcurrentHashMap<>();
+
+    public EventMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.repositoryCalls = pipelineFamily(REPOSITORY_CALLS, "operation");
+        this.cacheCalls = pipelineFamily(CACHE_CALLS, "operation");
+        this.aggregationPipelines = pipelineFamily(AGGREGATION_PIPELINES, "pipeline");
+        this.schedulerRuns = pipelineFamily(SCHEDULER_RUNS, "task");
+    }
+
+    /**
+     * Misura una chiamata a repository MongoDB
+     */
+    public <T> Mono<T> timeRepository(String operation, Mono<T> call) {
+        return timed(repositoryCalls.instruments(operation), call);
+    }
+
+    public <T> Flux<T> timeRepository(String operation, Flux<T> call) {
+        return timed(repositoryCalls.instruments(operation), call);
+    }
+
+    /**
+     * Misura una chiamata MongoDB di una classe di carico in background (rollup, report),
+     * separata dalle chiamate dei repository usate dal traffico interattivo
+     */
+    public <T> Mono<T> timeWorkload(String workload, String operation, Mono<T> call) {
+        return timed(workloadCalls(workload).instruments(operation), call);
+    }
+
+    public <T> Flux<T> timeWorkload(String workload, String operation, Flux<T> call) {
+        return timed(workloadCalls(workload).instruments(operation), call);
+    }
+
+    /**
+     * Misura una chiamata a Redis
+     */
+    public <T> Mono<T> timeCache(String operation, Mono<T> call) {
+        return timed(cacheCalls.instruments(operation), call);
+    }
+
+    public <T> Flux<T> timeCache(String operation, Flux<T> call) {
+        return timed(cacheCalls.instruments(operation), call);
+    }
+
+    /**
+     * Misura una pipeline di aggregazione dalla sottoscrizione all'ultimo elemento
+     */
+    public <T> Mono<T> timeAggregation(String pipeline, Mono<T> aggregation) {
+        return timed(aggregationPipelines.instruments(pipeline), aggregation);
+    }
+
+    public <T> Flux<T> timeAggregation(String pipeline, Flux<T> aggregation) {
+        return timed(aggregationPipelines.instruments(pipeline), aggregation);
+    }
+
+    /**
+     * Misura un'esecuzione di un task schedulato
+     */
+    public <T> Mono<T> timeScheduledRun(String task, Mono<T> run) {
+        return timed(schedulerRuns.instruments(task), run);
+    }
+
+    /**
+     * Registra l'esito di un lookup in cache
+     */
+    public void recordCacheLookup(String cache, boolean hit) {
+        CacheStats stats = cacheStats.computeIfAbsent(cache, this::registerCacheStats);
+        if (hit) {
+            stats.hits().increment();
+            stats.hitCount().incrementAndGet();
+        } else {
+            stats.misses().increment();
+        }
+        stats.lookupCount().incrementAndGet();
+    }
+
+    /**
+     * Registra un evento acquisito, per tipo
+     */
+    public void recordIngest(String eventType) {
+        String type = eventType == null ? "unknown" : eventType;
+        Counter counter = counters.get(type);
+        if (counter == null) {
+            if (counters.size() >= MAX_EVENT_TYPE_TAGS) {
+                type = OTHER_EVENT_TYPE;
+            }
+            counter = counters.computeIfAbsent(type, key -> Counter.builder(EVENTS_INGESTED)
+                    .description("Eventi acquisiti per tipo")
+                    .tag("type", key)
+                    .register(registry));
+        }
+        counter.increment();
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    // Il gauge in-flight ha le stesse chiavi di tag per tutte le famiglie: Prometheus lo richiede
+    private MeterFamily pipelineFamily(String metric, String tagKey) {
+        return new MeterFamily(metric, Tags.empty(), tagKey,
+                PIPELINE_IN_FLIGHT, name -> Tags.of("metric", metric, "name", name));
+    }
+
+    private MeterFamily workloadCalls(String workload) {
+        MeterFamily family = workloadCalls.get(workload);
+        return family != null ? family : workloadCalls.computeIfAbsent(workload, key -> new MeterFamily(
+                WORKLOAD_CALLS, Tags.of("workload", key), "operation",
+                WORKLOAD_IN_FLIGHT, operation -> Tags.of("workload", key, "operation", operation)));
+    }
+
+    private <T> Mono<T> timed(Instruments instruments, Mono<T> source) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            instruments.active().incrementAndGet();
+            return source.doFinally(signal -> {
+                instruments.active().decrementAndGet();
+                sample.stop(instruments.timer(signal));
+            });
+        });
+    }
+
+    private <T> Flux<T> timed(Instruments instruments, Flux<T> source) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            instruments.active().incrementAndGet();
+            return source.doFinally(signal -> {
+                instruments.active().decrementAndGet();
+                sample.stop(instruments.timer(signal));
+            });
+        });
+    }
+
+    private CacheStats registerCacheStats(String cache) {
+        CacheStats stats = new CacheStats(
+                Counter.builder(CACHE_LOOKUPS).tag("cache", cache).tag("result", "hit").register(registry),
+                Counter.builder(CACHE_LOOKUPS).tag("cache", cache).tag("result", "miss").register(registry),
+                new AtomicLong(),
+                new AtomicLong());
+        Gauge.builder(CACHE_HIT_RATIO, stats, CacheStats::hitRatio)
+                .description("Rapporto cumulativo hit/lookup della cache")
+                .tag("cache", cache)
+                .register(registry);
+        return stats;
+    }
+
+    private record CacheStats(Counter hits, Counter misses, AtomicLong hitCount, AtomicLong lookupCount) {
+        double hitRatio() {
+            long lookups = lookupCount.get();
+            return lookups == 0 ? 0.0 : (double) hitCount.get() / lookups;
+        }
+    }
+
+    /**
+     * Meter di una famiglia (nome della metrica e tag fissi) indicizzati per operazione.
+     * Ogni operazione registra gauge e timer una volta sola: le chiamate successive fanno
+     * un solo lookup per chiave già esistente, senza costruire stringhe o tag.
+     */
+    private final class MeterFamily {
+
+        private final String metric;
+        private final Tags tags;
+        private final String tagKey;
+        private final String inFlightMetric;
+        private final Function<String, Tags> inFlightTags;
+        private final Map<String, Instruments> byName = new ConcurrentHashMap<>();
+
+        MeterFamily(String metric, Tags tags, String tagKey, String inFlightMetric, Function<String, Tags> inFlightTags) {
+            this.metric = metric;
+            this.tags = tags;
+            this.tagKey = tagKey;
+            this.inFlightMetric = inFlightMetric;
+            this.inFlightTags = inFlightTags;
+        }
+
+        Instruments instruments(String name) {
+            Instruments instruments = byName.get(name);
+            return instruments != null ? instruments : byName.computeIfAbsent(name, this::register);
+        }
+
+        // Numero di sottoscrizioni attive per operazione: approssima la coda di lavoro in corso
+        private Instruments register(String name) {
+            AtomicInteger active = new AtomicInteger();
+            Gauge.builder(inFlightMetric, active, AtomicInteger::get)
+                    .description("Sottoscrizioni attive non ancora terminate")
+                    .tags(inFlightTags.apply(name))
+                    .register(registry);
+            return new Instruments(active, outcome -> Timer.builder(metric)
+                    .tags(tags)
+                    .tag(tagKey, name)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Gauge delle sottoscrizioni attive e timer per esito di una singola operazione;
+     * i timer di errore e cancellazione nascono al primo uso
+     */
+    private static final class Instruments {
+
+        private final AtomicInteger active;
+        private final Function<String, Timer> registrar;
+        private volatile Timer success;
+        private volatile Timer error;
+        private volatile Timer cancelled;
+
+        Instruments(AtomicInteger active, Function<String, Timer> registrar) {
+            this.active = active;
+            this.registrar = registrar;
+        }
+
+        AtomicInteger active() {
+            return active;
+        }
+
+        // Una registrazione concorrente dello stesso timer restituisce lo stesso meter
+        Timer timer(SignalType signal) {
+            return switch (signal) {
+                case ON_ERROR -> {
+                    Timer timer = error;
+                    yield timer != null ? timer : (error = registrar.apply("error"));
+                }
+                case CANCEL -> {
+                    Timer timer = cancelled;
+                    yield timer != null ? timer : (cancelled = registrar.apply("cancelled"));
+                }
+                default -> {
+                    Timer timer = success;
+                    yield timer != null ? timer : (success = registrar.apply("success"));
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.analyzer.event_analyzer.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Stima della latenza osservata per un singolo flusso di richieste omogenee.
+ * <p>
+ * I campioni sono raccolti in finestre di {@value #WINDOW_SAMPLES}: la mediana dell'ultima
+ * finestra è la latenza corrente, il {@value #BASELINE_PERCENTILE_PCT}° percentile delle
+ * mediane delle ultime {@value #BASELINE_WINDOWS} finestre è la baseline. Confrontando
+ * grandezze omogenee (mediane con mediane) il rapporto resta vicino a 1 sotto carico
+ * normale, e un singolo campione basso non sposta la baseline.
+ */
+public class LatencyTracker {
+
+    static final int WINDOW_SAMPLES = 32;
+    static final int BASELINE_WINDOWS = 60;
+    static final int BASELINE_PERCENTILE_PCT = 10;
+
+    private final long[] window = new long[WINDOW_SAMPLES];
+    private final double[] medians = new double[BASELINE_WINDOWS];
+    private int windowCount;
+    private int medianCount;
+    private int medianIndex;
+
+    private volatile double currentNanos;
+    private volatile double baselineNanos;
+    private volatile boolean sampled;
+
+    /**
+     * Registra un campione; true se ha chiuso una finestra e quindi aggiornato le stime
+     */
+    public synchronized boolean record(long nanos) {
+        window[windowCount++] = nanos;
+        if (windowCount < WINDOW_SAMPLES) {
+            return false;
+        }
+        closeWindow();
+        return true;
+    }
+
+    /**
+     * True quando almeno una finestra è completa
+     */
+    public boolean hasSamples() {
+        return sampled;
+    }
+
+    public double getCurrentNanos() {
+        return currentNanos;
+    }
+
+    public double getBaselineNanos() {
+        return baselineNanos;
+    }
+
+    /**
+     * Latenza corrente rispetto alla baseline; 1 senza campioni
+     */
+    public double getRatio() {
+        return sampled ? currentNanos / Math.max(1.0, baselineNanos) : 1.0;
+    }
+
+    private void closeWindow() {
+        Arrays.sort(window);
+        double median = (window[WINDOW_SAMPLES / 2 - 1] + window[WINDOW_SAMPLES / 2]) / 2.0;
+        windowCount = 0;
+
+        medians[medianIndex] = median;
+        medianIndex = (medianIndex + 1) % BASELINE_WINDOWS;
+        medianCount = Math.min(medianCount + 1, BASELINE_WINDOWS);
+
+        double[] recent = Arrays.copyOf(medians, medianCount);
+        Arrays.sort(recent);
+        baselineNanos = recent[(medianCount - 1) * BASELINE_PERCENTILE_PCT / 100];
+        currentNanos = median;
+        sampled = true;
+    }
+}
@@ -0,0 +1,30 @@
+package com.analyzer.event_analyzer.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+/**
+ * Regola di alert valutata in modo incrementale sugli eventi acquisiti.
+ * Tipo e sorgente null corrispondono a qualsiasi valore.
+ */
+@Data
+@Document(collection = "alert_rules")
+public class AlertRule {
+    @Id
+    private String id;
+    private String name;
+    private String type;
+    private String source;
+    private Condition condition;
+    // Numero di eventi per COUNT, frazione (0.05 = 5%) per FAILURE_RATIO
+    private double threshold;
+    private long windowSeconds;
+    // Eventi minimi nella finestra perché un rapporto sia significativo
+    private long minEvents = 1;
+    private boolean enabled = true;
+
+    public enum Condition {
+        COUNT, FAILURE_RATIO
+    }
+}
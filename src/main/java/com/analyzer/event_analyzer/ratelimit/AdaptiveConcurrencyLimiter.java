@@ -0,0 +1,82 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+import com.analyzer.event_analyzer.metrics.LatencyTracker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite di concorrenza adattivo (algoritmo a gradiente): quando la latenza delle richieste
+ * della propria classe di endpoint sale oltre la tolleranza rispetto alla baseline il limite
+ * si riduce in proporzione, quando torna normale il limite cresce di circa la radice
+ * quadrata di sé stesso fino al massimo configurato.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double SMOOTHING = 0.2;
+    // Variazione della latenza considerata normale prima di ridurre il limite
+    private static final double TOLERANCE = 2.0;
+
+    private final LatencyTracker latency = new LatencyTracker();
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Aggiornato senza lock: gli aggiornamenti persi in caso di gara sono innocui
+    private volatile double limit;
+
+    public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Restituisce il permesso senza campione di latenza (errore o cancellazione)
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Restituisce il permesso registrando la latenza della richiesta completata
+     */
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        // Il limite si aggiorna una volta per finestra di campioni, non a ogni richiesta
+        if (latency.record(latencyNanos)) {
+            adjust();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public LatencyTracker getLatency() {
+        return latency;
+    }
+
+    private void adjust() {
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, TOLERANCE / latency.getRatio()));
+        double current = limit;
+        double target = current * gradient + Math.sqrt(current);
+        limit = Math.max(minLimit, Math.min(maxLimit, current * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+}
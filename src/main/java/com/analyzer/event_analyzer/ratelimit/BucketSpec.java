@@ -0,0 +1,14 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+/**
+ * Dimensione del bucket (burst massimo) e velocità di ricarica in token al secondo
+ */
+public record BucketSpec(long capacity, double refillPerSecond) {
+
+    public BucketSpec {
+        if (capacity <= 0 || !(refillPerSecond > 0)) {
+            throw new IllegalArgumentException("Capacità e ricarica del bucket devono essere positive: "
+                    + capacity + ", " + refillPerSecond);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+/**
+ * Classi di endpoint soggette a limitazione, con i limiti predefiniti per utente.
+ * I valori sono sovrascrivibili con {@code app.rate-limit.<classe>.*}.
+ */
+public enum EndpointClass {
+    INGEST("ingest", 200, 100, 256),
+    QUERY("query", 50, 20, 64),
+    ANALYTICS("analytics", 10, 2, 16),
+    REPORT("report", 5, 0.2, 4);
+
+    private final String key;
+    private final long defaultCapacity;
+    private final double defaultRefillPerSecond;
+    private final int defaultMaxConcurrency;
+
+    EndpointClass(String key, long defaultCapacity, double defaultRefillPerSecond, int defaultMaxConcurrency) {
+        this.key = key;
+        this.defaultCapacity = defaultCapacity;
+        this.defaultRefillPerSecond = defaultRefillPerSecond;
+        this.defaultMaxConcurrency = defaultMaxConcurrency;
+    }
+
+    /**
+     * Classifica la richiesta; {@code null} se l'endpoint non è limitato
+     */
+    public static EndpointClass resolve(ServerHttpRequest request) {
+        String path = request.getPath().pathWithinApplication().value();
+        HttpMethod method = request.getMethod();
+
+        if (HttpMethod.POST.equals(method) && path.equals("/api/events")) {
+            return INGEST;
+        }
+        if (path.startsWith("/api/analytics/")) {
+            return ANALYTICS;
+        }
+        if (path.startsWith("/api/reports/")) {
+            return REPORT;
+        }
+        if (path.startsWith("/api/events/")) {
+            return QUERY;
+        }
+        return null;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public long defaultCapacity() {
+        return defaultCapacity;
+    }
+
+    public double defaultRefillPerSecond() {
+        return defaultRefillPerSecond;
+    }
+
+    public int defaultMaxConcurrency() {
+        return defaultMaxConcurrency;
+    }
+}
@@ -0,0 +1,41 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bucket in memoria, uno per chiave, in una mappa concorrente (già partizionata
+ * internamente): nessun lock globale sul percorso della richiesta.
+ */
+public class LocalTokenBucketStore implements TokenBucketStore {
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<RateLimitDecision> tryConsume(String key, BucketSpec spec) {
+        return Mono.just(consume(key, spec));
+    }
+
+    RateLimitDecision consume(String key, BucketSpec spec) {
+        long now = System.nanoTime();
+        long waitNanos = buckets.computeIfAbsent(key, k -> new TokenBucket(spec, now)).tryConsume(now);
+        return waitNanos == 0 ? RateLimitDecision.allow() : RateLimitDecision.reject(Duration.ofNanos(waitNanos));
+    }
+
+    /**
+     * Rimuove i bucket tornati pieni: equivalgono a un bucket nuovo
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now));
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,75 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+import com.analyzer.event_analyzer.metrics.EventMetrics;
+import io.micrometer.core.instrument.Gauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+@Slf4j
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    private static final String PREFIX = "app.rate-limit.";
+
+    private final LocalTokenBucketStore localBuckets = new LocalTokenBucketStore();
+
+    @Bean
+    public TokenBucketStore tokenBucketStore(Environment environment,
+                                             ObjectProvider<ReactiveStringRedisTemplate> redisTemplate) {
+        if (environment.getProperty(PREFIX + "redis.enabled", Boolean.class, false)) {
+            log.info("Rate limit con bucket condivisi su Redis");
+            return new RedisTokenBucketStore(redisTemplate.getObject(), localBuckets);
+        }
+        return localBuckets;
+    }
+
+    @Bean
+    public RateLimitWebFilter rateLimitWebFilter(TokenBucketStore tokenBucketStore,
+                                                 RateLimitProperties properties,
+                                                 EventMetrics metrics) {
+        Map<EndpointClass, BucketSpec> bucketSpecs = new EnumMap<>(EndpointClass.class);
+        Map<EndpointClass, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(EndpointClass.class);
+
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            RateLimitProperties.Limits limits = properties.limits(endpointClass);
+            bucketSpecs.put(endpointClass, limits.bucketSpec());
+
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                    limits.getMinConcurrency(), limits.getMaxConcurrency());
+            limiters.put(endpointClass, limiter);
+
+            Gauge.builder("eventanalyzer.ratelimit.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("endpoint", endpointClass.key())
+                    .register(metrics.getRegistry());
+            Gauge.builder("eventanalyzer.ratelimit.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("endpoint", endpointClass.key())
+                    .register(metrics.getRegistry());
+            Gauge.builder("eventanalyzer.ratelimit.latency.ratio", limiter, l -> l.getLatency().getRatio())
+                    .description("Latenza mediana corrente rispetto alla baseline della classe di endpoint")
+                    .tag("endpoint", endpointClass.key())
+                    .register(metrics.getRegistry());
+        }
+
+        return new RateLimitWebFilter(tokenBucketStore, bucketSpecs, limiters, metrics);
+    }
+
+    @Scheduled(fixedRate = 60000) // Libera i bucket inattivi ogni minuto
+    public void evictIdleBuckets() {
+        int evicted = localBuckets.evictIdle();
+        if (evicted > 0) {
+            log.debug("Rimossi {} bucket di rate limit inattivi", evicted);
+        }
+    }
+}
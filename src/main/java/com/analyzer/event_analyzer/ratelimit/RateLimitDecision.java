@@ -0,0 +1,19 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Esito di una richiesta di token: se negata, {@code retryAfter} indica quando riprovare
+ */
+public record RateLimitDecision(boolean allowed, Duration retryAfter) {
+
+    private static final RateLimitDecision ALLOWED = new RateLimitDecision(true, Duration.ZERO);
+
+    public static RateLimitDecision allow() {
+        return ALLOWED;
+    }
+
+    public static RateLimitDecision reject(Duration retryAfter) {
+        return new RateLimitDecision(false, retryAfter);
+    }
+}
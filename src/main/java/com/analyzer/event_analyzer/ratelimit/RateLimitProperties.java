@@ -0,0 +1,66 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Limiti per classe di endpoint ({@code app.rate-limit.<classe>.*}), validati all'avvio:
+ * una ricarica nulla o negativa renderebbe infinita l'attesa calcolata dai bucket.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    @Valid
+    private Limits ingest = Limits.defaults(EndpointClass.INGEST);
+
+    @Valid
+    private Limits query = Limits.defaults(EndpointClass.QUERY);
+
+    @Valid
+    private Limits analytics = Limits.defaults(EndpointClass.ANALYTICS);
+
+    @Valid
+    private Limits report = Limits.defaults(EndpointClass.REPORT);
+
+    public Limits limits(EndpointClass endpointClass) {
+        return switch (endpointClass) {
+            case INGEST -> ingest;
+            case QUERY -> query;
+            case ANALYTICS -> analytics;
+            case REPORT -> report;
+        };
+    }
+
+    @Data
+    public static class Limits {
+
+        @Positive
+        private long capacity;
+
+        @Positive
+        private double refillPerSecond;
+
+        @Positive
+        private int minConcurrency = 1;
+
+        @Positive
+        private int maxConcurrency;
+
+        static Limits defaults(EndpointClass endpointClass) {
+            Limits limits = new Limits();
+            limits.setCapacity(endpointClass.defaultCapacity());
+            limits.setRefillPerSecond(endpointClass.defaultRefillPerSecond());
+            limits.setMaxConcurrency(endpointClass.defaultMaxConcurrency());
+            return limits;
+        }
+
+        public BucketSpec bucketSpec() {
+            return new BucketSpec(capacity, refillPerSecond);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+import com.analyzer.event_analyzer.metrics.EventMetrics;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Controllo di ammissione su ingest e analytics: prima il limite di concorrenza adattivo
+ * della classe di endpoint, poi un token bucket per utente e classe. Una richiesta respinta
+ * per concorrenza non consuma token dell'utente; se manca il token il permesso è restituito.
+ * Le richieste in eccesso vengono scartate subito con 429 e {@code Retry-After},
+ * prima di arrivare al controller e quindi a MongoDB.
+ * <p>
+ * Gira dopo la catena di Spring Security, così il principal è già disponibile.
+ */
+public class RateLimitWebFilter implements WebFilter, Ordered {
+
+    public static final String REJECTED_METRIC = "eventanalyzer.ratelimit.rejected";
+
+    private static final Duration CONCURRENCY_RETRY_AFTER = Duration.ofSeconds(1);
+    private static final long NOT_ADMITTED = Long.MIN_VALUE;
+
+    private final TokenBucketStore bucketStore;
+    private final Map<EndpointClass, BucketSpec> bucketSpecs;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimiter> limiters;
+    private final EventMetrics metrics;
+
+    public RateLimitWebFilter(TokenBucketStore bucketStore,
+                              Map<EndpointClass, BucketSpec> bucketSpecs,
+                              Map<EndpointClass, AdaptiveConcurrencyLimiter> limiters,
+                              EventMetrics metrics) {
+        this.bucketStore = bucketStore;
+        this.bucketSpecs = bucketSpecs;
+        this.limiters = limiters;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        EndpointClass endpointClass = EndpointClass.resolve(exchange.getRequest());
+        if (endpointClass == null) {
+            return chain.filter(exchange);
+        }
+
+        return exchange.getPrincipal()
+                .map(Principal::getName)
+                .defaultIfEmpty("anonymous")
+                .flatMap(user -> {
+                    AdaptiveConcurrencyLimiter limiter = limiters.get(endpointClass);
+                    if (!limiter.tryAcquire()) {
+                        return reject(exchange, endpointClass, "concurrency", CONCURRENCY_RETRY_AFTER);
+                    }
+
+                    AtomicLong admittedAt = new AtomicLong(NOT_ADMITTED);
+                    return bucketStore.tryConsume(endpointClass.key() + ":" + user, bucketSpecs.get(endpointClass))
+                            .flatMap(decision -> {
+                                if (!decision.allowed()) {
+                                    return reject(exchange, endpointClass, "rate", decision.retryAfter());
+                                }
+                                admittedAt.set(System.nanoTime());
+                                return chain.filter(exchange);
+                            })
+                            .doFinally(signal -> {
+                                // Il segnale del limite è la latenza delle sole richieste ammesse di questa classe
+                                long start = admittedAt.get();
+                                if (start != NOT_ADMITTED && signal == SignalType.ON_COMPLETE) {
+                                    limiter.release(System.nanoTime() - start);
+                                } else {
+                                    limiter.release();
+                                }
+                            });
+                });
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, EndpointClass endpointClass,
+                              String reason, Duration retryAfter) {
+        Counter.builder(REJECTED_METRIC)
+                .tag("endpoint", endpointClass.key())
+                .tag("reason", reason)
+                .register(metrics.getRegistry())
+                .increment();
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        // Retry-After è espresso in secondi interi, arrotondati per eccesso
+        long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        return response.setComplete();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 10;
+    }
+}
@@ -0,0 +1,76 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Bucket condivisi tra i nodi su Redis: ricarica e consumo avvengono atomicamente
+ * in uno script Lua, usando l'orologio di Redis per evitare derive tra nodi.
+ * Se Redis non risponde entro il timeout si ripiega sui bucket locali, così un
+ * problema di Redis non blocca l'ingest.
+ */
+@Slf4j
+public class RedisTokenBucketStore implements TokenBucketStore {
+
+    private static final String KEY_PREFIX = "ratelimit:";
+    private static final Duration REDIS_TIMEOUT = Duration.ofMillis(50);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT = RedisScript.of("""
+            local capacity = tonumber(ARGV[1])
+            local rate = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(state[1])
+            local ts = tonumber(state[2])
+            if tokens == nil then
+                tokens = capacity
+                ts = now
+            end
+            tokens = math.min(capacity, tokens + math.max(0, now - ts) / 1000 * rate)
+            local allowed = 0
+            local wait = 0
+            if tokens >= 1 then
+                tokens = tokens - 1
+                allowed = 1
+            else
+                wait = math.ceil((1 - tokens) / rate * 1000)
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate * 1000) + 1000)
+            return {allowed, wait}
+            """, List.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final LocalTokenBucketStore fallback;
+
+    public RedisTokenBucketStore(ReactiveStringRedisTemplate redisTemplate, LocalTokenBucketStore fallback) {
+        this.redisTemplate = redisTemplate;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Mono<RateLimitDecision> tryConsume(String key, BucketSpec spec) {
+        return redisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(KEY_PREFIX + key),
+                        List.of(Long.toString(spec.capacity()), Double.toString(spec.refillPerSecond())))
+                .next()
+                .timeout(REDIS_TIMEOUT)
+                .map(RedisTokenBucketStore::toDecision)
+                .onErrorResume(error -> {
+                    log.debug("Rate limit su Redis non disponibile, uso i bucket locali: {}", error.toString());
+                    return fallback.tryConsume(key, spec);
+                });
+    }
+
+    private static RateLimitDecision toDecision(List<?> result) {
+        long allowed = ((Number) result.get(0)).longValue();
+        long waitMillis = ((Number) result.get(1)).longValue();
+        return allowed == 1 ? RateLimitDecision.allow() : RateLimitDecision.reject(Duration.ofMillis(waitMillis));
+    }
+}
@@ -0,0 +1,44 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+/**
+ * Token bucket con ricarica continua. Ogni bucket ha il proprio lock, quindi la
+ * contesa è limitata alle richieste dello stesso utente sulla stessa classe di endpoint.
+ */
+class TokenBucket {
+
+    private final BucketSpec spec;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(BucketSpec spec, long nowNanos) {
+        this.spec = spec;
+        this.tokens = spec.capacity();
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Consuma un token; restituisce 0 se concesso, altrimenti i nanosecondi
+     * da attendere prima che un token sia disponibile
+     */
+    synchronized long tryConsume(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            return 0;
+        }
+        return (long) Math.ceil((1.0 - tokens) / spec.refillPerSecond() * 1_000_000_000L);
+    }
+
+    synchronized boolean isIdle(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= spec.capacity();
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(spec.capacity(), tokens + elapsed / 1_000_000_000.0 * spec.refillPerSecond());
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
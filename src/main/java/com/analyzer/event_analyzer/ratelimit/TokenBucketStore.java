@@ -0,0 +1,11 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Stato dei token bucket, locale al nodo o condiviso tra nodi
+ */
+public interface TokenBucketStore {
+
+    Mono<RateLimitDecision> tryConsume(String key, BucketSpec spec);
+}
@@ -0,0 +1,7 @@
+package com.analyzer.event_analyzer.repository;
+
+import com.analyzer.event_analyzer.model.AlertRule;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface AlertRuleRepository extends ReactiveMongoRepository<AlertRule, String> {
+}
@@ -1,63 +1,130 @@
 package com.analyzer.event_analyzer.service;
 
+import com.analyzer.event_analyzer.config.WorkloadMongoTemplates;
+import com.analyzer.event_analyzer.metrics.EventMetrics;
 import com.analyzer.event_analyzer.model.Event;
 import com.analyzer.event_analyzer.model.EventAnalytics;
 import com.analyzer.event_analyzer.repository.EventAnalyticsRepository;
-import com.analyzer.event_analyzer.repository.EventRepository;
+import com.analyzer.event_analyzer.storage.EventDictionary;
+import com.analyzer.event_analyzer.workload.WorkloadClass;
+import com.analyzer.event_analyzer.workload.WorkloadIsolation;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class AnalyticsService {
-    private final EventRepository eventRepository;
     private final EventAnalyticsRepository analyticsRepository;
+    private final EventMetrics metrics;
+    private final WorkloadIsolation workloads;
+    private final WorkloadMongoTemplates workloadTemplates;
+    private final EventDictionary eventDictionary;
+    private final AtomicBoolean rollupRunning = new AtomicBoolean();
 
     public Flux<EventAnalytics> getAnalyticsForPeriod(String eventType, int lastHours) {
         Instant start = Instant.now().minus(lastHours, ChronoUnit.HOURS);
-        return analyticsRepository.findByEventTypeAndPeriodStartGreaterThanEqual(eventType, start);
+        return metrics.timeRepository("analytics.findByEventTypeAndPeriodStartGreaterThanEqual",
+                analyticsRepository.findByEventTypeAndPeriodStartGreaterThanEqual(eventType, start));
     }
 
     @Scheduled(fixedRate = 300000) // Esegui ogni 5 minuti
     public void computeHourlyAnalytics() {
-        Instant hourAgo = Instant.now().minus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.HOURS);
-        Instant now = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        // Un'esecuzione più lenta dell'intervallo non deve sovrapporsi alla successiva
+        if (!rollupRunning.compareAndSet(false, true)) {
+            log.warn("Calcolo orario ancora in corso, esecuzione saltata");
+            return;
+        }
 
-        // Raggruppa per tipo di evento
-        Map<String, Flux<Event>> eventsByType = new HashMap<>();
+        // Ultima ora chiusa: ogni esecuzione ricalcola lo stesso periodo e sostituisce il risultato
+        Instant periodEnd = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        Instant periodStart = periodEnd.minus(1, ChronoUnit.HOURS);
+        ReactiveMongoTemplate template = workloadTemplates.forWorkload(WorkloadClass.ROLLUP);
+        String workload = WorkloadClass.ROLLUP.key();
 
-        Flux<Event> recentEvents = eventRepository.findByTypeAndTimestampBetween(null, hourAgo, now);
+        Flux<EventAnalytics> rollups = workloads.runMany(WorkloadClass.ROLLUP, () -> {
+            Flux<Event> recentEvents = eventDictionary.retryOnUnknownCode(metrics.timeWorkload(workload,
+                    "events.findByTimestampBetween",
+                    template.find(Query.query(Criteria.where("timestamp").gte(periodStart).lt(periodEnd)), Event.class)));
 
-        recentEvents.groupBy(Event::getType)
-                .flatMap(group -> {
-                    String eventType = group.key();
+            // Raggruppa per tipo di evento, fuori dagli event loop
+            return recentEvents.publishOn(workloads.scheduler(WorkloadClass.ROLLUP))
+                    .filter(event -> event.getType() != null)
+                    .groupBy(Event::getType)
+                    .flatMap(group -> {
+                        String eventType = group.key();
 
-                    return group.collectList()
-                            .flatMap(events -> {
-                                // Calcola le metriche aggregate
-                                Map<String, Long> countBySource = new HashMap<>();
+                        return group.collectList()
+                                .map(events -> rollup(eventType, events, periodStart, periodEnd))
+                                .flatMap(analytics -> metrics.timeWorkload(workload, "analytics.upsert",
+                                        upsertRollup(template, analytics)));
+                    });
+        });
 
-                                for (Event event : events) {
-                                    countBySource.merge(event.getSource(), 1L, Long::sum);
-                                }
+        metrics.timeScheduledRun("computeHourlyAnalytics", rollups.count())
+                .doFinally(signal -> rollupRunning.set(false))
+                .subscribe(
+                        count -> log.debug("Calcolo orario completato: {} tipi di evento", count),
+                        error -> log.error("Calcolo orario fallito", error));
+    }
+
+    /**
+     * Sostituisce in un'unica operazione il rollup di (eventType, periodStart), creandolo se
+     * manca: i lettori non vedono mai l'ora vuota e l'indice unico su quella coppia impedisce
+     * duplicati anche con calcoli concorrenti (schedulato e replay dell'archivio)
+     */
+    public Mono<EventAnalytics> upsertRollup(ReactiveMongoTemplate template, EventAnalytics analytics) {
+        Query existing = Query.query(Criteria.where("eventType").is(analytics.getEventType())
+                .and("periodStart").is(analytics.getPeriodStart()));
+        return template.findAndReplace(existing, analytics, FindAndReplaceOptions.options().upsert().returnNew());
+    }
 
-                                EventAnalytics analytics = new EventAnalytics();
-                                analytics.setEventType(eventType);
-                                analytics.setPeriodStart(hourAgo);
-                                analytics.setPeriodEnd(now);
-                                analytics.setCount((long) events.size());
-                                analytics.setCountBySource(countBySource);
+    /**
+     * Calcola le metriche aggregate di un gruppo di eventi dello stesso tipo.
+     * Usato sia dal calcolo periodico sia dal replay dell'archivio.
+     */
+    public EventAnalytics rollup(String eventType, List<Event> events, Instant periodStart, Instant periodEnd) {
+        EventAnalytics analytics = emptyRollup(eventType, periodStart, periodEnd);
+        for (Event event : events) {
+            accumulate(analytics, event);
+        }
+        return analytics;
+    }
+
+    /**
+     * Rollup senza eventi, da alimentare uno alla volta con {@link #accumulate}
+     */
+    public EventAnalytics emptyRollup(String eventType, Instant periodStart, Instant periodEnd) {
+        EventAnalytics analytics = new EventAnalytics();
+        analytics.setEventType(eventType);
+        analytics.setPeriodStart(periodStart);
+        analytics.setPeriodEnd(periodEnd);
+        analytics.setCount(0L);
+        analytics.setCountBySource(new HashMap<>());
+        return analytics;
+    }
 
-                                return analyticsRepository.save(analytics);
-                            });
-                }).subscribe();
+    /**
+     * Aggiunge un evento al rollup senza conservarlo
+     */
+    public void accumulate(EventAnalytics analytics, Event event) {
+        analytics.setCount(analytics.getCount() + 1);
+        analytics.getCountBySource().merge(event.getSource(), 1L, Long::sum);
     }
 }
 
@@ -1,5 +1,6 @@
 package com.analyzer.event_analyzer.service;
 
+import com.analyzer.event_analyzer.metrics.EventMetrics;
 import com.analyzer.event_analyzer.model.Event;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +20,7 @@ import java.time.temporal.ChronoUnit;
 public class CacheService {
 
     private final ReactiveRedisTemplate<String, Event> redisTemplate;
+    private final EventMetrics metrics;
 
     private static final Duration DEFAULT_CACHE_DURATION = Duration.ofMinutes(30);
     private static final String EVENT_KEY_PREFIX = "event:";
@@ -29,8 +31,8 @@ public class CacheService {
      */
     public Mono<Boolean> cacheEvent(Event event) {
         String key = buildEventKey(event);
-        return redisTemplate.opsForValue()
-                .set(key, event, DEFAULT_CACHE_DURATION);
+        return metrics.timeCache("set", redisTemplate.opsForValue()
+                .set(key, event, DEFAULT_CACHE_DURATION));
     }
 
     /**
@@ -38,7 +40,8 @@ public class CacheService {
      */
     public Mono<Event> getCachedEvent(String eventId) {
         String key = EVENT_KEY_PREFIX + eventId;
-        return redisTemplate.opsForValue().get(key);
+        return metrics.timeCache("get", redisTemplate.opsForValue().get(key))
+                .doOnSuccess(event -> metrics.recordCacheLookup("event", event != null));
     }
 
     /**
@@ -46,8 +49,8 @@ public class CacheService {
      */
     public Mono<Long> addToRecentEvents(Event event) {
         String key = RECENT_EVENTS_KEY_PREFIX + event.getType();
-        return redisTemplate.opsForList()
-                .leftPush(key, event)
+        return metrics.timeCache("leftPush", redisTemplate.opsForList()
+                        .leftPush(key, event))
                 .doOnNext(size -> {
                     // Mantiene la lista a una dimensione massima di 100 elementi
                     if (size > 100) {
@@ -64,8 +67,11 @@ public class CacheService {
      */
     public Flux<Event> getRecentEventsByType(String type, int limit) {
         String key = RECENT_EVENTS_KEY_PREFIX + type;
-        return redisTemplate.opsForList()
-                .range(key, 0, limit - 1);
+        return metrics.timeCache("range", redisTemplate.opsForList()
+                        .range(key, 0, limit - 1))
+                .collectList()
+                .doOnNext(events -> metrics.recordCacheLookup("recent", !events.isEmpty()))
+                .flatMapIterable(events -> events);
     }
 
     /**
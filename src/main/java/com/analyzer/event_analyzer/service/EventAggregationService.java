@@ -1,7 +1,11 @@
 package com.analyzer.event_analyzer.service;
 
+import com.analyzer.event_analyzer.config.WorkloadMongoTemplates;
+import com.analyzer.event_analyzer.metrics.EventMetrics;
 import com.analyzer.event_analyzer.model.Event;
-import com.analyzer.event_analyzer.repository.EventRepository;
+import com.analyzer.event_analyzer.storage.EventDictionary;
+import com.analyzer.event_analyzer.workload.WorkloadClass;
+import com.analyzer.event_analyzer.workload.WorkloadIsolation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
@@ -10,11 +14,14 @@ import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
 import org.springframework.data.mongodb.core.aggregation.GroupOperation;
 import org.springframework.data.mongodb.core.aggregation.MatchOperation;
 import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Sort;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -26,8 +33,13 @@ import java.util.Map;
 @Slf4j
 public class EventAggregationService {
 
-    private final ReactiveMongoTemplate mongoTemplate;
-    private final EventRepository eventRepository;
+    // Numero di tipi di cui calcolare i trend in parallelo in un report
+    private static final int REPORT_TREND_CONCURRENCY = 2;
+
+    private final WorkloadMongoTemplates workloadTemplates;
+    private final WorkloadIsolation workloads;
+    private final EventMetrics metrics;
+    private final EventDictionary eventDictionary;
 
     /**
      * Aggrega eventi per tipo nel periodo specificato
@@ -48,12 +60,21 @@ public class EventAggregationService {
                 .andExclude("_id")
                 .andInclude("count", "totalValue", "averageValue", "lastEventTime");
 
-        Aggregation aggregation = Aggregation.newAggregation(
+        // Aggregazione tipizzata: nomi dei campi e valori passano dal mapping di Event
+        TypedAggregation<Event> aggregation = Aggregation.newAggregation(
+                Event.class,
                 matchOperation,
                 groupOperation,
                 projectionOperation);
 
-        return mongoTemplate.aggregate(aggregation, "events", (Class<Map<String, Object>>) (Class<?>) Map.class);
+        return metrics.timeAggregation("eventsByType",
+                        reportTemplate().aggregate(aggregation, "events", (Class<Map<String, Object>>) (Class<?>) Map.class))
+                // Con la codifica compatta il raggruppamento restituisce il codice del tipo
+                .concatMap(result -> eventDictionary.decodeAsync(EventDictionary.TYPE, result.get("eventType"))
+                        .map(type -> {
+                            result.put("eventType", type);
+                            return result;
+                        }));
     }
 
     /**
@@ -73,12 +94,12 @@ public class EventAggregationService {
                 .andExpression("year(timestamp)").as("year")
                 .andExpression("month(timestamp)").as("month")
                 .andExpression("dayOfMonth(timestamp)").as("day")
-                .and("payload");
+                .and("payload.value").as("value");
 
         GroupOperation groupByDay = Aggregation.group("year", "month", "day")
                 .count().as("count")
-                .avg("payload.value").as("avgValue")
-                .sum("payload.value").as("totalValue");
+                .avg("value").as("avgValue")
+                .sum("value").as("totalValue");
 
         ProjectionOperation projectResults = Aggregation.project()
                 .and("_id.year").as("year")
@@ -87,7 +108,8 @@ public class EventAggregationService {
                 .andExclude("_id")
                 .andInclude("count", "avgValue", "totalValue");
 
-        Aggregation aggregation = Aggregation.newAggregation(
+        TypedAggregation<Event> aggregation = Aggregation.newAggregation(
+                Event.class,
                 matchByType,
                 projectToYMD,
                 groupByDay,
@@ -95,29 +117,38 @@ public class EventAggregationService {
                 Aggregation.sort(Sort.Direction.ASC, "year", "month", "day")
         );
 
-        return mongoTemplate.aggregate(aggregation, "events", Map.class);
+        // Il filtro sul tipo va codificato: il codice può essere stato assegnato da un altro nodo
+        return metrics.timeAggregation("eventTrends", eventDictionary.resolve(EventDictionary.TYPE, eventType)
+                .thenMany(Flux.defer(() -> reportTemplate().aggregate(aggregation, "events", Map.class))));
     }
 
     /**
-     * Genera report di analisi completo
+     * Genera report di analisi completo, come lavoro della classe REPORT
      */
     public Mono<Map<String, Object>> generateCompleteAnalyticsReport(int days) {
+        return workloads.run(WorkloadClass.REPORT, () -> buildCompleteAnalyticsReport(days));
+    }
+
+    private Mono<Map<String, Object>> buildCompleteAnalyticsReport(int days) {
         Instant endTime = Instant.now();
         Instant startTime = endTime.minus(days, ChronoUnit.DAYS);
 
         Map<String, Object> report = new HashMap<>();
 
         // 1. Conteggio eventi totali
-        Mono<Long> totalEvents = eventRepository.count();
+        Mono<Long> totalEvents = metrics.timeWorkload(WorkloadClass.REPORT.key(), "events.estimatedCount",
+                reportTemplate().estimatedCount(Event.class));
 
         // 2. Distribuzione per tipo
         Flux<Map<String, Object>> eventsByType = aggregateEventsByType(startTime, endTime);
 
         // 3. Trend temporali per ogni tipo
         // Questa è un'operazione costosa su dataset grandi, quindi limitiamo i tipi
-        Flux<String> eventTypes = eventRepository.findAll()
-                .map(Event::getType)
-                .distinct()
+        Flux<String> eventTypes = metrics.timeWorkload(WorkloadClass.REPORT.key(), "events.findDistinctType",
+                        reportTemplate().findDistinct(new Query(), "type", Event.class, Object.class))
+                // Con la codifica compatta i valori distinti sono codici
+                .concatMap(type -> eventDictionary.decodeAsync(EventDictionary.TYPE, type))
+                .map(String::valueOf)
                 .take(5); // Limita a 5 tipi più comuni
 
         Flux<Map<String, Object>> trendsByType = eventTypes.flatMap(type ->
@@ -128,11 +159,14 @@ public class EventAggregationService {
                             typeTrend.put("eventType", type);
                             typeTrend.put("dailyTrends", trends);
                             return typeTrend;
-                        })
+                        }),
+                REPORT_TREND_CONCURRENCY
         );
 
-        // Combina tutti i risultati in un unico report
-        return totalEvents.flatMap(total -> {
+        Scheduler reportScheduler = workloads.scheduler(WorkloadClass.REPORT);
+
+        // Combina tutti i risultati in un unico report, sui thread della classe REPORT
+        return metrics.timeAggregation("completeReport", totalEvents.flatMap(total -> {
             report.put("totalEvents", total);
             report.put("period", Map.of(
                     "start", startTime.toString(),
@@ -140,11 +174,15 @@ public class EventAggregationService {
                     "durationDays", days
             ));
 
-            return eventsByType.collectList()
+            return eventsByType.publishOn(reportScheduler).collectList()
                     .doOnNext(types -> report.put("eventsByType", types))
-                    .then(trendsByType.collectList())
+                    .then(trendsByType.publishOn(reportScheduler).collectList())
                     .doOnNext(trends -> report.put("trends", trends))
                     .thenReturn(report);
-        });
+        }));
+    }
+
+    private ReactiveMongoTemplate reportTemplate() {
+        return workloadTemplates.forWorkload(WorkloadClass.REPORT);
     }
-}
\ No newline at end of file
+}
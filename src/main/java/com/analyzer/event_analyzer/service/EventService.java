@@ -1,7 +1,12 @@
 package com.analyzer.event_analyzer.service;
 
+import com.analyzer.event_analyzer.alerting.AlertEngine;
+import com.analyzer.event_analyzer.metrics.EventMetrics;
 import com.analyzer.event_analyzer.model.Event;
 import com.analyzer.event_analyzer.repository.EventRepository;
+import com.analyzer.event_analyzer.storage.EventDictionary;
+import com.analyzer.event_analyzer.workload.WorkloadClass;
+import com.analyzer.event_analyzer.workload.WorkloadIsolation;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
@@ -12,6 +17,10 @@ import java.time.Instant;
 @RequiredArgsConstructor
 public class EventService {
     private final EventRepository eventRepository;
+    private final EventMetrics metrics;
+    private final EventDictionary eventDictionary;
+    private final AlertEngine alertEngine;
+    private final WorkloadIsolation workloads;
 
     public Mono<Event> saveEvent(Event event) {
         if (event.getTimestamp() == null) {
@@ -20,24 +29,39 @@ public class EventService {
         if (event.getStatus() == null) {
             event.setStatus(Event.EventStatus.RECEIVED);
         }
-        return eventRepository.save(event);
+        // Con la codifica compatta i valori nuovi vanno registrati prima della scrittura
+        return workloads.run(WorkloadClass.INGEST, () -> eventDictionary.register(event)
+                .then(metrics.timeRepository("events.save", eventRepository.save(event)))
+                .doOnNext(saved -> {
+                    metrics.recordIngest(saved.getType());
+                    alertEngine.onIngest(saved);
+                }));
     }
 
     public Flux<Event> getRecentEventsByType(String type, int limit) {
         Instant hourAgo = Instant.now().minusSeconds(3600);
-        return eventRepository.findByTypeAndTimestampBetween(type, hourAgo, Instant.now())
-                .take(limit);
+        // Il filtro sul tipo va codificato: il codice può essere stato assegnato da un altro nodo
+        // e un codice nei risultati può essere più recente del dizionario in memoria
+        return eventDictionary.resolve(EventDictionary.TYPE, type)
+                .thenMany(Flux.defer(() -> eventDictionary.retryOnUnknownCode(
+                        metrics.timeRepository("events.findByTypeAndTimestampBetween",
+                                eventRepository.findByTypeAndTimestampBetween(type, hourAgo, Instant.now())
+                                        .take(limit)))));
     }
 
     public Flux<Event> findAnomalousEvents(double threshold) {
-        return eventRepository.findByPayloadValueGreaterThan(threshold);
+        return eventDictionary.retryOnUnknownCode(metrics.timeRepository("events.findByPayloadValueGreaterThan",
+                eventRepository.findByPayloadValueGreaterThan(threshold)));
     }
 
     public Mono<Event> updateEventStatus(String eventId, Event.EventStatus newStatus) {
-        return eventRepository.findById(eventId)
+        return eventDictionary.retryOnUnknownCode(
+                        metrics.timeRepository("events.findById", eventRepository.findById(eventId)))
                 .flatMap(event -> {
+                    Event.EventStatus previousStatus = event.getStatus();
                     event.setStatus(newStatus);
-                    return eventRepository.save(event);
+                    return metrics.timeRepository("events.save", eventRepository.save(event))
+                            .doOnNext(saved -> alertEngine.onStatusChange(saved, previousStatus));
                 });
     }
 }
@@ -0,0 +1,87 @@
+package com.analyzer.event_analyzer.storage;
+
+import com.analyzer.event_analyzer.config.WorkloadMongoTemplates;
+import com.analyzer.event_analyzer.model.Event;
+import com.analyzer.event_analyzer.workload.WorkloadClass;
+import com.analyzer.event_analyzer.workload.WorkloadIsolation;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Converte i documenti esistenti della collezione "events" dal formato esteso a quello
+ * compatto. I documenti da migrare sono riconosciuti dalla presenza del campo "type":
+ * la migrazione è quindi idempotente e può essere ripresa dopo un'interruzione.
+ * <p>
+ * Gira come lavoro di rollup: pool di connessioni e scheduler di quella classe, e un
+ * permesso occupato per tutta la durata, così non compete con l'ingest.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CompactEncodingMigrator {
+
+    private static final String COLLECTION = "events";
+
+    private final WorkloadMongoTemplates workloadTemplates;
+    private final WorkloadIsolation workloads;
+    private final EventDictionary eventDictionary;
+
+    public Mono<MigrationResult> migrate(int batchSize) {
+        if (!eventDictionary.isEnabled()) {
+            return Mono.error(new IllegalStateException(
+                    "La codifica compatta non è attiva (app.mongo.compact.enabled=false)"));
+        }
+
+        ReactiveMongoTemplate template = workloadTemplates.forWorkload(WorkloadClass.ROLLUP);
+        return workloads.run(WorkloadClass.ROLLUP, () -> template.getCollection(COLLECTION)
+                .flatMapMany(collection -> Flux.from(collection.find(Filters.exists("type")).batchSize(batchSize))
+                        // Conversione fuori dagli event loop del driver
+                        .publishOn(workloads.scheduler(WorkloadClass.ROLLUP))
+                        .map(CompactEncodingMigrator::fromLegacy)
+                        .concatMap(event -> eventDictionary.register(event).thenReturn(event))
+                        .map(event -> toReplacement(template, event))
+                        .buffer(batchSize)
+                        .concatMap(batch -> Mono.from(collection.bulkWrite(batch))
+                                .map(result -> (long) result.getModifiedCount())))
+                .reduce(new MigrationResult(0, 0), (total, modified) ->
+                        new MigrationResult(total.migrated() + modified, total.batches() + 1))
+                .doOnNext(result -> log.info("Migrazione alla codifica compatta completata: {} documenti in {} batch",
+                        result.migrated(), result.batches())));
+    }
+
+    private static WriteModel<Document> toReplacement(ReactiveMongoTemplate template, Event event) {
+        Document compact = new Document();
+        template.getConverter().write(event, compact);
+        return new ReplaceOneModel<>(Filters.eq("_id", compact.get("_id")), compact);
+    }
+
+    private static Event fromLegacy(Document document) {
+        Event event = new Event();
+        Object id = document.get("_id");
+        event.setId(id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id));
+        event.setType(document.getString("type"));
+        event.setSource(document.getString("source"));
+        event.setUserId(document.getString("userId"));
+        Date timestamp = document.getDate("timestamp");
+        event.setTimestamp(timestamp == null ? null : timestamp.toInstant());
+        event.setPayload(document.get("payload", Document.class));
+        event.setCorrelationId(document.getString("correlationId"));
+        String status = document.getString("status");
+        event.setStatus(status == null ? null : Event.EventStatus.valueOf(status));
+        return event;
+    }
+
+    public record MigrationResult(long migrated, long batches) {}
+}
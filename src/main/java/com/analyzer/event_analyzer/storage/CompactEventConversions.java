@@ -0,0 +1,126 @@
+package com.analyzer.event_analyzer.storage;
+
+import com.analyzer.event_analyzer.model.Event;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions.MongoConverterConfigurationAdapter;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Convertitori per-proprietà della codifica compatta di {@link Event}: tipo e sorgente
+ * come codici di dizionario, stato numerico, chiavi del payload internate.
+ * <p>
+ * Essendo convertitori di proprietà, Spring Data li applica anche ai valori delle query
+ * (query derivate, {@code Criteria}, match delle aggregazioni tipizzate), per cui i
+ * chiamanti di {@code EventRepository} continuano a usare stringhe ed enum.
+ */
+public final class CompactEventConversions {
+
+    private CompactEventConversions() {
+    }
+
+    public static void configure(MongoConverterConfigurationAdapter adapter,
+                                 ObjectProvider<EventDictionary> dictionary) {
+        adapter.configurePropertyConversions(registrar -> registrar
+                .registerConverter(Event.class, "type", new DictionaryValueConverter(dictionary, EventDictionary.TYPE))
+                .registerConverter(Event.class, "source", new DictionaryValueConverter(dictionary, EventDictionary.SOURCE))
+                .registerConverter(Event.class, "status", new StatusCodeConverter())
+                .registerConverter(Event.class, "payload", new PayloadKeyConverter(dictionary)));
+    }
+
+    /**
+     * Codice numerico stabile dello stato, indipendente dall'ordine dell'enum
+     */
+    static int statusCode(Event.EventStatus status) {
+        return switch (status) {
+            case RECEIVED -> 1;
+            case PROCESSING -> 2;
+            case PROCESSED -> 3;
+            case FAILED -> 4;
+        };
+    }
+
+    static Event.EventStatus statusOf(int code) {
+        return switch (code) {
+            case 1 -> Event.EventStatus.RECEIVED;
+            case 2 -> Event.EventStatus.PROCESSING;
+            case 3 -> Event.EventStatus.PROCESSED;
+            case 4 -> Event.EventStatus.FAILED;
+            default -> throw new IllegalArgumentException("Codice di stato sconosciuto: " + code);
+        };
+    }
+
+    static final class DictionaryValueConverter implements MongoValueConverter<Object, Object> {
+        private final ObjectProvider<EventDictionary> dictionary;
+        private final String namespace;
+
+        DictionaryValueConverter(ObjectProvider<EventDictionary> dictionary, String namespace) {
+            this.dictionary = dictionary;
+            this.namespace = namespace;
+        }
+
+        @Override
+        public Object read(Object value, MongoConversionContext context) {
+            return dictionary.getObject().decode(namespace, value);
+        }
+
+        @Override
+        public Object write(Object value, MongoConversionContext context) {
+            return dictionary.getObject().encode(namespace, value);
+        }
+    }
+
+    static final class StatusCodeConverter implements MongoValueConverter<Object, Object> {
+
+        @Override
+        public Object read(Object value, MongoConversionContext context) {
+            if (value instanceof Number code) {
+                return statusOf(code.intValue());
+            }
+            return value instanceof String name ? Event.EventStatus.valueOf(name) : value;
+        }
+
+        @Override
+        public Object write(Object value, MongoConversionContext context) {
+            if (value instanceof Event.EventStatus status) {
+                return statusCode(status);
+            }
+            return value instanceof String name ? statusCode(Event.EventStatus.valueOf(name)) : value;
+        }
+    }
+
+    static final class PayloadKeyConverter implements MongoValueConverter<Object, Object> {
+        private final ObjectProvider<EventDictionary> dictionary;
+
+        PayloadKeyConverter(ObjectProvider<EventDictionary> dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public Object read(Object value, MongoConversionContext context) {
+            if (!(value instanceof Map<?, ?> stored)) {
+                return value;
+            }
+            EventDictionary eventDictionary = dictionary.getObject();
+            Map<String, Object> payload = new LinkedHashMap<>();
+            stored.forEach((key, entry) -> payload.put(eventDictionary.decodePayloadKey(key.toString()), entry));
+            return payload;
+        }
+
+        // Anche i valori di query su "payload.*" passano di qui: i non-Map restano invariati
+        @Override
+        public Object write(Object value, MongoConversionContext context) {
+            if (!(value instanceof Map<?, ?> payload)) {
+                return value;
+            }
+            EventDictionary eventDictionary = dictionary.getObject();
+            Document stored = new Document();
+            payload.forEach((key, entry) -> stored.put(eventDictionary.encodePayloadKey(key.toString()), entry));
+            return stored;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.analyzer.event_analyzer.storage;
+
+import com.analyzer.event_analyzer.model.Event;
+import org.springframework.data.mapping.PersistentProperty;
+import org.springframework.data.mapping.model.FieldNamingStrategy;
+import org.springframework.data.mapping.model.PropertyNameFieldNamingStrategy;
+
+import java.util.Map;
+
+/**
+ * Nomi di campo brevi per i documenti della collezione "events".
+ * Essendo una strategia del mapping context, vale anche per query derivate,
+ * {@code Criteria}, aggregazioni tipizzate e definizioni di indice su {@link Event}.
+ */
+public class CompactFieldNamingStrategy implements FieldNamingStrategy {
+
+    static final Map<String, String> EVENT_FIELDS = Map.of(
+            "type", "t",
+            "source", "s",
+            "userId", "u",
+            "timestamp", "ts",
+            "payload", "p",
+            "correlationId", "c",
+            "status", "st");
+
+    private final FieldNamingStrategy delegate = PropertyNameFieldNamingStrategy.INSTANCE;
+
+    @Override
+    public String getFieldName(PersistentProperty<?> property) {
+        if (property.getOwner().getType() == Event.class) {
+            String shortName = EVENT_FIELDS.get(property.getName());
+            if (shortName != null) {
+                return shortName;
+            }
+        }
+        return delegate.getFieldName(property);
+    }
+}
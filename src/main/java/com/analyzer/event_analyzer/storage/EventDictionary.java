@@ -0,0 +1,341 @@
+package com.analyzer.event_analyzer.storage;
+
+import com.analyzer.event_analyzer.model.Event;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dizionario dei valori ripetitivi degli eventi (tipo, sorgente, chiavi del payload)
+ * persistito nella collezione "event_dictionary".
+ * <p>
+ * I convertitori di Spring Data sono sincroni, quindi lavorano solo sulla copia in
+ * memoria: i valori nuovi vengono registrati in modo reattivo da {@link #register(Event)}
+ * prima del salvataggio, e i valori usati nei filtri vanno risolti con {@link #resolve}
+ * prima di costruire la query, perché un altro nodo può averli già codificati.
+ * Un codice sconosciuto in lettura (assegnato da un altro nodo dopo l'ultimo caricamento)
+ * fa fallire subito la conversione, senza mai bloccare i thread del driver: le letture di
+ * entità vanno avvolte in {@link #retryOnUnknownCode}, che ricarica il dizionario e le
+ * ripete, mentre i risultati grezzi delle aggregazioni si decodificano con {@link #decodeAsync}.
+ */
+@Component
+@Slf4j
+public class EventDictionary {
+
+    public static final String TYPE = "type";
+    public static final String SOURCE = "source";
+    public static final String PAYLOAD_KEY = "payloadKey";
+
+    static final String COLLECTION = "event_dictionary";
+
+    private static final String INTERNED_KEY_PREFIX = "#";
+    private static final long MIN_RELOAD_INTERVAL_MS = 1000;
+    private static final int UNKNOWN_CODE_RETRIES = 2;
+
+    private final ReactiveMongoDatabaseFactory databaseFactory;
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final AtomicLong lastReload = new AtomicLong();
+
+    @Value("${app.mongo.compact.enabled:false}")
+    private boolean enabled;
+
+    // Chiavi del payload lasciate in chiaro perché usate in query e indici
+    @Value("${app.mongo.compact.preserved-payload-keys:value}")
+    private Set<String> preservedPayloadKeys = Set.of("value");
+
+    public EventDictionary(ReactiveMongoDatabaseFactory databaseFactory) {
+        this.databaseFactory = databaseFactory;
+    }
+
+    /**
+     * Caricamento iniziale asincrono: finché non termina i codici mancanti vengono risolti
+     * come quelli di un altro nodo (scritture e filtri li cercano su MongoDB, le letture
+     * ricaricano e ripetono), quindi l'avvio non deve attendere MongoDB
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        lastReload.set(System.currentTimeMillis());
+        load().subscribe(null,
+                error -> log.warn("Caricamento del dizionario eventi fallito, verrà riprovato su richiesta", error),
+                () -> log.info("Dizionario eventi caricato: {} voci", codes.size()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Garantisce che tipo, sorgente e chiavi del payload abbiano un codice
+     */
+    public Mono<Void> register(Event event) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        List<String[]> missing = new ArrayList<>(2);
+        addIfMissing(missing, TYPE, event.getType());
+        addIfMissing(missing, SOURCE, event.getSource());
+        if (event.getPayload() != null) {
+            for (String key : event.getPayload().keySet()) {
+                if (!isPreservedPayloadKey(key)) {
+                    addIfMissing(missing, PAYLOAD_KEY, key);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(missing)
+                .concatMap(entry -> allocate(entry[0], entry[1]))
+                .then();
+    }
+
+    /**
+     * Carica il codice di un valore registrato da un altro nodo, se esiste. Va usato prima
+     * di costruire un filtro sul valore, altrimenti {@link #encode} lo lascerebbe in chiaro
+     * e la query non troverebbe i documenti codificati.
+     */
+    public Mono<Void> resolve(String namespace, String value) {
+        if (!enabled || value == null || codes.containsKey(key(namespace, value))) {
+            return Mono.empty();
+        }
+        return collection()
+                .flatMap(collection -> Mono.from(collection.find(Filters.eq("_id", namespace + ":" + value)).first()))
+                .filter(entry -> entry.getInteger("code") != null)
+                .doOnNext(entry -> remember(namespace, value, entry.getInteger("code")))
+                .then();
+    }
+
+    /**
+     * Codice del valore se noto, altrimenti il valore stesso (un valore mai registrato
+     * non compare in nessun documento codificato)
+     */
+    public Object encode(String namespace, Object value) {
+        if (value instanceof String text) {
+            Integer code = codes.get(key(namespace, text));
+            if (code == null && enabled) {
+                reloadInBackground();
+            }
+            return code != null ? code : text;
+        }
+        return value;
+    }
+
+    /**
+     * Come {@link #decode}, ma un codice sconosciuto viene cercato su MongoDB senza bloccare
+     */
+    public Mono<Object> decodeAsync(String namespace, Object stored) {
+        if (!(stored instanceof Number number) || values.containsKey(key(namespace, number.toString()))) {
+            return Mono.fromSupplier(() -> decode(namespace, stored));
+        }
+        int code = number.intValue();
+        return fetchValue(namespace, code)
+                .switchIfEmpty(Mono.error(() -> unknownCode(namespace, code)))
+                .cast(Object.class);
+    }
+
+    /**
+     * Valore originale di un codice; accetta anche valori già in chiaro
+     */
+    public Object decode(String namespace, Object stored) {
+        if (stored instanceof Number number) {
+            return valueOf(namespace, number.intValue());
+        }
+        return stored;
+    }
+
+    public String encodePayloadKey(String key) {
+        if (isPreservedPayloadKey(key)) {
+            return key;
+        }
+        Integer code = codes.get(key(PAYLOAD_KEY, key));
+        return code != null ? INTERNED_KEY_PREFIX + Integer.toString(code, Character.MAX_RADIX) : key;
+    }
+
+    public String decodePayloadKey(String key) {
+        if (!key.startsWith(INTERNED_KEY_PREFIX)) {
+            return key;
+        }
+        int code;
+        try {
+            code = Integer.parseInt(key.substring(INTERNED_KEY_PREFIX.length()), Character.MAX_RADIX);
+        } catch (NumberFormatException e) {
+            return key;
+        }
+        return valueOf(PAYLOAD_KEY, code);
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    /**
+     * Ripete una lettura di entità fallita per un codice sconosciuto, dopo aver ricaricato
+     * il dizionario senza bloccare
+     */
+    public <T> Mono<T> retryOnUnknownCode(Mono<T> read) {
+        if (!enabled) {
+            return read;
+        }
+        return read.retryWhen(Retry.max(UNKNOWN_CODE_RETRIES)
+                .filter(EventDictionary::isUnknownCode)
+                .doBeforeRetryAsync(signal -> reload())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * Come la variante per {@link Mono}; il risultato è raccolto prima di essere emesso,
+     * così una lettura ripetuta non consegna due volte gli elementi già letti. Gli endpoint
+     * JSON raccolgono comunque il Flux in un array prima di serializzarlo.
+     */
+    public <T> Flux<T> retryOnUnknownCode(Flux<T> read) {
+        if (!enabled) {
+            return read;
+        }
+        return retryOnUnknownCode(read.collectList()).flatMapIterable(list -> list);
+    }
+
+    Mono<Void> load() {
+        return collection()
+                .flatMapMany(collection -> Flux.from(collection.find(Filters.exists("code"))))
+                .doOnNext(document -> remember(
+                        document.getString("ns"), document.getString("value"), document.getInteger("code")))
+                .then();
+    }
+
+    // Operatori di query ($gt, ...) e chiavi preservate restano in chiaro
+    private boolean isPreservedPayloadKey(String key) {
+        return key.startsWith("$") || preservedPayloadKeys.contains(key);
+    }
+
+    private void addIfMissing(List<String[]> missing, String namespace, String value) {
+        if (value != null && !codes.containsKey(key(namespace, value))) {
+            missing.add(new String[]{namespace, value});
+        }
+    }
+
+    /**
+     * Assegna un codice: prima incrementa la sequenza del namespace, poi inserisce la
+     * voce solo se assente. Se un altro nodo ha già registrato il valore vince il suo codice.
+     */
+    private Mono<Integer> allocate(String namespace, String value) {
+        FindOneAndUpdateOptions upsert = new FindOneAndUpdateOptions()
+                .upsert(true)
+                .returnDocument(ReturnDocument.AFTER);
+
+        return collection()
+                .flatMap(collection -> Mono.from(collection.findOneAndUpdate(
+                                Filters.eq("_id", "seq:" + namespace), Updates.inc("next", 1), upsert))
+                        .map(sequence -> sequence.getInteger("next"))
+                        .flatMap(next -> Mono.from(collection.findOneAndUpdate(
+                                Filters.eq("_id", namespace + ":" + value),
+                                Updates.combine(
+                                        Updates.setOnInsert("ns", namespace),
+                                        Updates.setOnInsert("value", value),
+                                        Updates.setOnInsert("code", next)),
+                                upsert)))
+                        .map(entry -> entry.getInteger("code")))
+                // Due upsert concorrenti sulla stessa voce: uno fallisce per chiave duplicata
+                .retryWhen(Retry.max(2).filter(error -> error instanceof MongoException mongoException
+                        && ErrorCategory.fromErrorCode(mongoException.getCode()) == ErrorCategory.DUPLICATE_KEY))
+                .doOnNext(code -> remember(namespace, value, code));
+    }
+
+    /**
+     * Valore di un codice noto in memoria. I convertitori sono sincroni e girano sui thread
+     * del driver, quindi un codice mancante non viene atteso: la conversione fallisce con
+     * {@link UnknownCodeException} e il dizionario si ricarica in background.
+     */
+    private String valueOf(String namespace, int code) {
+        String value = values.get(key(namespace, Integer.toString(code)));
+        if (value != null) {
+            return value;
+        }
+        reloadInBackground();
+        throw unknownCode(namespace, code);
+    }
+
+    private Mono<String> fetchValue(String namespace, int code) {
+        return collection()
+                .flatMap(collection -> Mono.from(collection.find(Filters.and(
+                        Filters.eq("ns", namespace), Filters.eq("code", code))).first()))
+                .map(entry -> {
+                    String value = entry.getString("value");
+                    remember(namespace, value, code);
+                    return value;
+                });
+    }
+
+    private static UnknownCodeException unknownCode(String namespace, int code) {
+        return new UnknownCodeException(namespace, code);
+    }
+
+    // Spring Data può avvolgere l'eccezione del convertitore: si cerca nella catena delle cause
+    static boolean isUnknownCode(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UnknownCodeException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> reload() {
+        lastReload.set(System.currentTimeMillis());
+        return load();
+    }
+
+    void remember(String namespace, String value, int code) {
+        codes.put(key(namespace, value), code);
+        values.put(key(namespace, Integer.toString(code)), value);
+    }
+
+    private void reloadInBackground() {
+        long now = System.currentTimeMillis();
+        long last = lastReload.get();
+        if (now - last >= MIN_RELOAD_INTERVAL_MS && lastReload.compareAndSet(last, now)) {
+            load().subscribe(null, error -> log.warn("Ricaricamento del dizionario eventi fallito", error));
+        }
+    }
+
+    private Mono<MongoCollection<Document>> collection() {
+        return databaseFactory.getMongoDatabase().map(database -> database.getCollection(COLLECTION));
+    }
+
+    private static String key(String namespace, String value) {
+        return namespace + '\u0000' + value;
+    }
+
+    /**
+     * Codice letto da un documento ma assente dal dizionario in memoria
+     */
+    static final class UnknownCodeException extends IllegalStateException {
+
+        UnknownCodeException(String namespace, int code) {
+            super("Codice " + code + " sconosciuto nel dizionario eventi (" + namespace + ")");
+        }
+    }
+}
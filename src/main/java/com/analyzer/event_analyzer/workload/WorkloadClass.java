@@ -0,0 +1,58 @@
+package com.analyzer.event_analyzer.workload;
+
+/**
+ * Classi di carico isolate tra loro: ognuna ha scheduler, pool di connessioni MongoDB e
+ * limite di concorrenza propri. I valori sono sovrascrivibili con {@code app.workload.<classe>.*}.
+ * <p>
+ * L'ingest non viene spostato su uno scheduler dedicato: resta sugli event loop di Netty,
+ * che sono liberi perché rollup e report elaborano i risultati sui propri thread.
+ */
+public enum WorkloadClass {
+    INGEST("ingest", false, 0, 512, 0, 50),
+    ROLLUP("rollup", true, 2, 2, 4, 4),
+    REPORT("report", true, 4, 4, 16, 8);
+
+    private final String key;
+    private final boolean offloaded;
+    private final int defaultThreads;
+    private final int defaultMaxConcurrency;
+    private final int defaultMaxQueued;
+    private final int defaultMongoPoolSize;
+
+    WorkloadClass(String key, boolean offloaded, int defaultThreads, int defaultMaxConcurrency,
+                  int defaultMaxQueued, int defaultMongoPoolSize) {
+        this.key = key;
+        this.offloaded = offloaded;
+        this.defaultThreads = defaultThreads;
+        this.defaultMaxConcurrency = defaultMaxConcurrency;
+        this.defaultMaxQueued = defaultMaxQueued;
+        this.defaultMongoPoolSize = defaultMongoPoolSize;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    /**
+     * True se l'elaborazione dei risultati avviene su uno scheduler dedicato
+     */
+    public boolean offloaded() {
+        return offloaded;
+    }
+
+    public int defaultThreads() {
+        return defaultThreads;
+    }
+
+    public int defaultMaxConcurrency() {
+        return defaultMaxConcurrency;
+    }
+
+    public int defaultMaxQueued() {
+        return defaultMaxQueued;
+    }
+
+    public int defaultMongoPoolSize() {
+        return defaultMongoPoolSize;
+    }
+}
@@ -0,0 +1,169 @@
+package com.analyzer.event_analyzer.workload;
+
+import com.analyzer.event_analyzer.metrics.EventMetrics;
+import com.analyzer.event_analyzer.metrics.LatencyTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Esecuzione dei lavori per classe di carico: limite di concorrenza con coda limitata,
+ * scheduler dedicato per le classi in background e metriche di coda per classe.
+ * <p>
+ * L'ingest ha la priorità: quando la latenza mediana dell'ingest sale oltre
+ * {@code app.workload.ingest-degradation-factor} volte la baseline, rollup e report
+ * scendono a un lavoro alla volta, e tornano al limite pieno solo quando il rapporto
+ * rientra sotto {@code app.workload.ingest-recovery-factor} (isteresi, per non oscillare).
+ * Il segnale è la sola latenza dell'ingest, non quella delle chiamate di rollup e report.
+ */
+@Component
+@Slf4j
+public class WorkloadIsolation {
+
+    public static final String QUEUE_WAIT = "eventanalyzer.workload.queue.wait";
+    public static final String REJECTED = "eventanalyzer.workload.rejected";
+
+    private static final String PREFIX = "app.workload.";
+
+    private final Map<WorkloadClass, WorkloadLimiter> limiters = new EnumMap<>(WorkloadClass.class);
+    private final Map<WorkloadClass, Scheduler> schedulers = new EnumMap<>(WorkloadClass.class);
+    private final LatencyTracker ingestLatency = new LatencyTracker();
+    private final double degradationFactor;
+    private final double recoveryFactor;
+    private volatile boolean ingestDegraded;
+    private final MeterRegistry registry;
+
+    public WorkloadIsolation(Environment environment, EventMetrics metrics) {
+        this.registry = metrics.getRegistry();
+        this.degradationFactor = environment.getProperty(PREFIX + "ingest-degradation-factor", Double.class, 2.0);
+        this.recoveryFactor = environment.getProperty(PREFIX + "ingest-recovery-factor", Double.class, 1.3);
+
+        for (WorkloadClass workload : WorkloadClass.values()) {
+            String prefix = PREFIX + workload.key() + ".";
+            int maxConcurrency = environment.getProperty(prefix + "max-concurrency", Integer.class,
+                    workload.defaultMaxConcurrency());
+            int maxQueued = environment.getProperty(prefix + "max-queued", Integer.class,
+                    workload.defaultMaxQueued());
+
+            Timer queueWait = Timer.builder(QUEUE_WAIT)
+                    .description("Attesa in coda prima dell'esecuzione")
+                    .tag("workload", workload.key())
+                    .publishPercentileHistogram()
+                    .register(registry);
+            WorkloadLimiter limiter = new WorkloadLimiter(workload,
+                    workload == WorkloadClass.INGEST
+                            ? () -> maxConcurrency
+                            : () -> isIngestDegraded() ? 1 : maxConcurrency,
+                    maxQueued,
+                    nanos -> queueWait.record(nanos, TimeUnit.NANOSECONDS));
+            limiters.put(workload, limiter);
+
+            Gauge.builder("eventanalyzer.workload.active", limiter, WorkloadLimiter::getActive)
+                    .tag("workload", workload.key())
+                    .register(registry);
+            Gauge.builder("eventanalyzer.workload.queued", limiter, WorkloadLimiter::getQueued)
+                    .tag("workload", workload.key())
+                    .register(registry);
+            Gauge.builder("eventanalyzer.workload.limit", limiter, WorkloadLimiter::getLimit)
+                    .tag("workload", workload.key())
+                    .register(registry);
+
+            if (workload.offloaded()) {
+                int threads = environment.getProperty(prefix + "threads", Integer.class, workload.defaultThreads());
+                schedulers.put(workload, Schedulers.newBoundedElastic(threads,
+                        Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "workload-" + workload.key()));
+            }
+        }
+    }
+
+    /**
+     * Esegue il lavoro quando la classe ha un permesso libero; il permesso è
+     * restituito al termine, anche in caso di errore, cancellazione o eccezione
+     * lanciata dal supplier prima ancora di restituire il publisher
+     */
+    public <T> Mono<T> run(WorkloadClass workload, Supplier<Mono<T>> work) {
+        WorkloadLimiter limiter = limiters.get(workload);
+        return Mono.usingWhen(acquire(workload, limiter),
+                grantedAt -> work.get(),
+                grantedAt -> Mono.fromRunnable(() -> {
+                    limiter.release();
+                    if (workload == WorkloadClass.INGEST) {
+                        recordIngestLatency(System.nanoTime() - grantedAt);
+                    }
+                }),
+                (grantedAt, error) -> Mono.fromRunnable(limiter::release),
+                grantedAt -> Mono.fromRunnable(limiter::release));
+    }
+
+    public <T> Flux<T> runMany(WorkloadClass workload, Supplier<Flux<T>> work) {
+        WorkloadLimiter limiter = limiters.get(workload);
+        return Flux.usingWhen(acquire(workload, limiter),
+                grantedAt -> work.get(),
+                grantedAt -> Mono.fromRunnable(limiter::release),
+                (grantedAt, error) -> Mono.fromRunnable(limiter::release),
+                grantedAt -> Mono.fromRunnable(limiter::release));
+    }
+
+    /**
+     * Scheduler su cui elaborare i risultati della classe; l'immediate per l'ingest
+     */
+    public Scheduler scheduler(WorkloadClass workload) {
+        return schedulers.getOrDefault(workload, Schedulers.immediate());
+    }
+
+    public boolean isIngestDegraded() {
+        return ingestDegraded;
+    }
+
+    // Lo stato cambia solo a finestra chiusa, con soglie diverse per entrata e uscita
+    private void recordIngestLatency(long nanos) {
+        if (!ingestLatency.record(nanos)) {
+            return;
+        }
+        double ratio = ingestLatency.getRatio();
+        if (!ingestDegraded && ratio > degradationFactor) {
+            ingestDegraded = true;
+            log.info("Latenza dell'ingest {}x la baseline: rollup e report limitati", String.format("%.1f", ratio));
+        } else if (ingestDegraded && ratio < recoveryFactor) {
+            ingestDegraded = false;
+            log.info("Latenza dell'ingest rientrata: rollup e report al limite pieno");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        schedulers.values().forEach(scheduler -> scheduler.disposeGracefully()
+                .timeout(Duration.ofSeconds(10))
+                .onErrorResume(error -> Mono.fromRunnable(scheduler::dispose))
+                .subscribe());
+    }
+
+    private Mono<Long> acquire(WorkloadClass workload, WorkloadLimiter limiter) {
+        return limiter.acquire()
+                .onErrorMap(WorkloadRejectedException.class, error -> rejected(workload, error));
+    }
+
+    private Throwable rejected(WorkloadClass workload, Throwable error) {
+        Counter.builder(REJECTED)
+                .tag("workload", workload.key())
+                .register(registry)
+                .increment();
+        log.debug("Lavoro rifiutato per la classe {}", workload.key());
+        return error;
+    }
+}
@@ -0,0 +1,129 @@
+package com.analyzer.event_analyzer.workload;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Limite di concorrenza non bloccante con coda limitata: oltre il limite le richieste
+ * attendono in ordine di arrivo, oltre la coda vengono rifiutate. Il limite è letto a
+ * ogni acquisizione, così può essere ridotto a caldo.
+ */
+final class WorkloadLimiter {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final WorkloadClass workload;
+    private final IntSupplier limit;
+    private final int maxQueued;
+    private final LongConsumer queueWaitNanos;
+    private final Deque<Waiter> waiting = new ArrayDeque<>();
+    private int active;
+
+    WorkloadLimiter(WorkloadClass workload, IntSupplier limit, int maxQueued, LongConsumer queueWaitNanos) {
+        this.workload = workload;
+        this.limit = limit;
+        this.maxQueued = maxQueued;
+        this.queueWaitNanos = queueWaitNanos;
+    }
+
+    /**
+     * Emette l'istante (nanoTime) in cui il permesso è concesso; va restituito con
+     * {@link #release()}. Se il sottoscrittore cancella prima della consegna, in coda
+     * o appena concesso, il permesso torna disponibile da sé.
+     */
+    Mono<Long> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink, System.nanoTime());
+            boolean granted = false;
+            boolean rejected = false;
+            synchronized (this) {
+                if (waiting.isEmpty() && active < limit.getAsInt()) {
+                    active++;
+                    waiter.state.set(GRANTED);
+                    granted = true;
+                } else if (waiting.size() < maxQueued) {
+                    waiting.addLast(waiter);
+                } else {
+                    rejected = true;
+                }
+            }
+            if (rejected) {
+                sink.error(new WorkloadRejectedException(workload));
+                return;
+            }
+            // Dopo la consegna il sink è terminato e questo callback non viene più invocato
+            sink.onCancel(() -> {
+                if (waiter.state.compareAndSet(WAITING, CANCELLED)) {
+                    synchronized (this) {
+                        waiting.remove(waiter);
+                    }
+                } else {
+                    // Concesso ma non ancora consegnato: il permesso torna disponibile
+                    release();
+                }
+            });
+            if (granted) {
+                queueWaitNanos.accept(0);
+                sink.success(System.nanoTime());
+            }
+        });
+    }
+
+    void release() {
+        synchronized (this) {
+            active--;
+        }
+        drain();
+    }
+
+    synchronized int getActive() {
+        return active;
+    }
+
+    synchronized int getQueued() {
+        return waiting.size();
+    }
+
+    int getLimit() {
+        return limit.getAsInt();
+    }
+
+    // Le consegne avvengono fuori dal lock: il lavoro sottoscritto a valle può essere sincrono
+    private void drain() {
+        while (true) {
+            Waiter next;
+            synchronized (this) {
+                if (waiting.isEmpty() || active >= limit.getAsInt()) {
+                    return;
+                }
+                next = waiting.pollFirst();
+                if (!next.state.compareAndSet(WAITING, GRANTED)) {
+                    continue;
+                }
+                active++;
+            }
+            long now = System.nanoTime();
+            queueWaitNanos.accept(now - next.enqueuedNanos);
+            next.sink.success(now);
+        }
+    }
+
+    private static final class Waiter {
+        final MonoSink<Long> sink;
+        final long enqueuedNanos;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+
+        Waiter(MonoSink<Long> sink, long enqueuedNanos) {
+            this.sink = sink;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
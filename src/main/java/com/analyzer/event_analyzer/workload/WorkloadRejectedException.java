@@ -0,0 +1,15 @@
+package com.analyzer.event_analyzer.workload;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Lavoro rifiutato perché la coda della classe di carico è piena
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class WorkloadRejectedException extends RuntimeException {
+
+    public WorkloadRejectedException(WorkloadClass workload) {
+        super("Coda piena per la classe di carico " + workload.key());
+    }
+}
@@ -0,0 +1,30 @@
+package com.analyzer.event_analyzer.workload;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.Duration;
+
+/**
+ * Risposta ai lavori rifiutati per coda piena: 503 con {@code Retry-After}, come i 429
+ * del rate limiting, così i client applicano lo stesso backoff a entrambi i rifiuti.
+ */
+@RestControllerAdvice
+public class WorkloadRejectedHandler {
+
+    @Value("${app.workload.retry-after:PT1S}")
+    private Duration retryAfter;
+
+    @ExceptionHandler(WorkloadRejectedException.class)
+    public ResponseEntity<Void> rejected(WorkloadRejectedException error) {
+        // Retry-After è espresso in secondi interi, arrotondati per eccesso
+        long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.analyzer.event_analyzer.alerting;
+
+import com.analyzer.event_analyzer.model.AlertRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class AlertRuleEvaluationTest {
+
+	private static final long MINUTE = 60_000;
+
+	@Test
+	void countRuleFiresOnceAndResolvesWhenWindowSlides() {
+		CompiledRule rule = new CompiledRule(rule("r1", AlertRule.Condition.COUNT, 2, 300, "login", "web"));
+
+		assertNull(rule.onEvent(0, false));
+		assertNull(rule.onEvent(1000, false));
+		AlertFiring firing = rule.onEvent(2000, false);
+		assertEquals(AlertFiring.State.FIRING, firing.state());
+		assertEquals(3, firing.eventsInWindow());
+		assertNull(rule.onEvent(3000, false));
+
+		AlertFiring resolved = rule.evaluate(6 * MINUTE);
+		assertEquals(AlertFiring.State.RESOLVED, resolved.state());
+		assertNull(rule.evaluate(7 * MINUTE));
+	}
+
+	@Test
+	void failureRatioRespectsMinimumEventsAndLateFailures() {
+		AlertRule definition = rule("r2", AlertRule.Condition.FAILURE_RATIO, 0.05, 600, null, null);
+		definition.setMinEvents(10);
+		CompiledRule rule = new CompiledRule(definition);
+
+		assertNull(rule.onEvent(0, true));
+		for (int i = 1; i < 9; i++) {
+			assertNull(rule.onEvent(i, false));
+		}
+		AlertFiring firing = rule.onEvent(9, false);
+		assertEquals(AlertFiring.State.FIRING, firing.state());
+		assertEquals(0.1, firing.value(), 1e-9);
+
+		AlertFiring resolved = null;
+		for (int i = 0; i < 10; i++) {
+			AlertFiring transition = rule.onEvent(10 + i, false);
+			if (transition != null) {
+				resolved = transition;
+			}
+		}
+		// 1 fallito su 20: 5%, non oltre la soglia
+		assertEquals(AlertFiring.State.RESOLVED, resolved.state());
+		// Un evento già acquisito che passa a FAILED: 2 su 20
+		assertEquals(AlertFiring.State.FIRING, rule.onFailure(30).state());
+	}
+
+	@Test
+	void indexVisitsOnlyMatchingRulesAndKeepsStateOfUnchangedRules() {
+		AlertRule exact = rule("exact", AlertRule.Condition.COUNT, 1, 60, "login", "web");
+		AlertRule anySource = rule("anySource", AlertRule.Condition.COUNT, 1, 60, "login", null);
+		AlertRule anyType = rule("anyType", AlertRule.Condition.COUNT, 1, 60, null, "web");
+		AlertRule all = rule("all", AlertRule.Condition.COUNT, 1, 60, null, null);
+		AlertRule other = rule("other", AlertRule.Condition.COUNT, 1, 60, "purchase", "mobile");
+		RuleIndex index = RuleIndex.build(List.of(exact, anySource, anyType, all, other), RuleIndex.EMPTY);
+
+		assertEquals(List.of("exact", "anySource", "anyType", "all"), matching(index, "login", "web"));
+		assertEquals(List.of("anySource", "all"), matching(index, "login", null));
+		assertEquals(List.of("all"), matching(index, "logout", "api"));
+
+		List<CompiledRule> before = new ArrayList<>();
+		index.forEachMatching("purchase", "mobile", before::add);
+		AlertRule changed = rule("exact", AlertRule.Condition.COUNT, 5, 60, "login", "web");
+		RuleIndex rebuilt = RuleIndex.build(List.of(changed, other), index);
+
+		List<CompiledRule> after = new ArrayList<>();
+		rebuilt.forEachMatching("purchase", "mobile", after::add);
+		assertSame(before.get(0), after.get(0));
+		assertEquals(List.of("exact"), matching(rebuilt, "login", "web"));
+	}
+
+	private static List<String> matching(RuleIndex index, String type, String source) {
+		List<String> ids = new ArrayList<>();
+		index.forEachMatching(type, source, rule -> ids.add(rule.getRule().getId()));
+		return ids;
+	}
+
+	private static AlertRule rule(String id, AlertRule.Condition condition, double threshold, long windowSeconds,
+								  String type, String source) {
+		AlertRule rule = new AlertRule();
+		rule.setId(id);
+		rule.setName(id);
+		rule.setCondition(condition);
+		rule.setThreshold(threshold);
+		rule.setWindowSeconds(windowSeconds);
+		rule.setType(type);
+		rule.setSource(source);
+		return rule;
+	}
+}
@@ -0,0 +1,114 @@
+package com.analyzer.event_analyzer.archive;
+
+import com.analyzer.event_analyzer.model.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventSegmentTest {
+
+	private static final Instant START = Instant.parse("2025-01-01T10:00:00Z");
+	private static final Instant END = Instant.parse("2025-01-01T11:00:00Z");
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void roundTripsAllColumnsAcrossBlocks() throws Exception {
+		Path file = directory.resolve("events-test.seg");
+		try (EventSegmentWriter writer = new EventSegmentWriter(file, START, END)) {
+			writer.append(List.of(event("a", "user_login", "web_app", 5, Event.EventStatus.RECEIVED, 12.5)));
+			writer.append(List.of(
+					event("b", "purchase", "mobile_app", 60_000, Event.EventStatus.FAILED, null),
+					event("c", "user_login", null, 30_000, null, 7.0)));
+			writer.commit();
+		}
+		assertFalse(Files.exists(directory.resolve("events-test.seg.tmp")));
+
+		EventSegmentReader reader = EventSegmentReader.open(file);
+		List<Event> events = new ArrayList<>();
+		long read = reader.forEach(EnumSet.allOf(SegmentColumn.class), events::add);
+
+		assertEquals(3, read);
+		assertEquals(START, reader.getPartitionStart());
+		assertEquals(END, reader.getPartitionEnd());
+
+		Event first = events.get(0);
+		assertEquals("a", first.getId());
+		assertEquals("user_login", first.getType());
+		assertEquals("web_app", first.getSource());
+		assertEquals(START.plusMillis(5), first.getTimestamp());
+		assertEquals(Event.EventStatus.RECEIVED, first.getStatus());
+		assertEquals(12.5, ((Number) first.getPayload().get("value")).doubleValue());
+		assertEquals("Chrome", first.getPayload().get("browser"));
+
+		Event third = events.get(2);
+		assertNull(third.getSource());
+		assertNull(third.getStatus());
+		assertEquals(START.plusMillis(30_000), third.getTimestamp());
+	}
+
+	@Test
+	void readsOnlyRequestedColumns() throws Exception {
+		Path file = directory.resolve("events-projection.seg");
+		try (EventSegmentWriter writer = new EventSegmentWriter(file, START, END)) {
+			writer.append(List.of(event("a", "user_login", "web_app", 5, Event.EventStatus.RECEIVED, 1.0)));
+			writer.commit();
+		}
+
+		List<Event> events = new ArrayList<>();
+		EventSegmentReader.open(file).forEach(EnumSet.of(SegmentColumn.TYPE, SegmentColumn.PAYLOAD_VALUE), events::add);
+
+		Event event = events.get(0);
+		assertEquals("user_login", event.getType());
+		assertNull(event.getId());
+		assertNull(event.getTimestamp());
+		assertTrue(event.getPayload().containsKey("value"));
+		assertFalse(event.getPayload().containsKey("browser"));
+	}
+
+	@Test
+	void statusCodesAreStableAndIndependentOfOrdinals() throws Exception {
+		assertEquals(0, SegmentCodec.statusCode(null));
+		assertEquals(1, SegmentCodec.statusCode(Event.EventStatus.RECEIVED));
+		assertEquals(4, SegmentCodec.statusCode(Event.EventStatus.FAILED));
+		for (Event.EventStatus status : Event.EventStatus.values()) {
+			assertEquals(status, SegmentCodec.statusOf(SegmentCodec.statusCode(status)));
+		}
+		assertThrows(IllegalArgumentException.class, () -> SegmentCodec.statusOf(99));
+
+		Path file = directory.resolve("events-header.seg");
+		try (EventSegmentWriter writer = new EventSegmentWriter(file, START, END)) {
+			writer.commit();
+		}
+		SegmentHeader header = EventSegmentReader.readHeader(file);
+		assertEquals(START, header.partitionStart());
+		assertEquals(END, header.partitionEnd());
+	}
+
+	private static Event event(String id, String type, String source, long offsetMillis,
+							   Event.EventStatus status, Double value) {
+		Event event = new Event();
+		event.setId(id);
+		event.setType(type);
+		event.setSource(source);
+		event.setUserId("user1");
+		event.setTimestamp(START.plusMillis(offsetMillis));
+		event.setStatus(status);
+		event.setPayload(value == null ? Map.of("browser", "Firefox") : Map.of("value", value, "browser", "Chrome"));
+		return event;
+	}
+}
@@ -0,0 +1,161 @@
+package com.analyzer.event_analyzer.config;
+
+import com.analyzer.event_analyzer.model.Event;
+import com.analyzer.event_analyzer.model.EventAnalytics;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MongoIndexConfigTest {
+
+	private final ReactiveMongoTemplate template = mock(ReactiveMongoTemplate.class);
+	private final ReactiveIndexOperations eventIndexes = mock(ReactiveIndexOperations.class);
+	private final ReactiveIndexOperations analyticsIndexes = mock(ReactiveIndexOperations.class);
+	private final List<IndexInfo> existingEventIndexes = new ArrayList<>();
+	private final List<IndexInfo> existingAnalyticsIndexes = new ArrayList<>();
+	private final List<Document> built = new ArrayList<>();
+	private Function<Document, Mono<String>> builder = keys -> Mono.just(keys.toJson());
+
+	private final MongoIndexConfig config = new MongoIndexConfig(template);
+	private final IndexReadinessIndicator readiness = new IndexReadinessIndicator(config);
+
+	@BeforeEach
+	void setUp() {
+		MongoMappingContext mappingContext = new MongoMappingContext();
+		mappingContext.afterPropertiesSet();
+		when(template.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+		when(template.getCollectionName(Event.class)).thenReturn("events");
+		when(template.getCollectionName(EventAnalytics.class)).thenReturn("event_analytics");
+		when(template.indexOps(Event.class)).thenReturn(eventIndexes);
+		when(template.indexOps(EventAnalytics.class)).thenReturn(analyticsIndexes);
+		when(eventIndexes.getIndexInfo()).thenAnswer(invocation -> Flux.fromIterable(existingEventIndexes));
+		when(analyticsIndexes.getIndexInfo()).thenAnswer(invocation -> Flux.fromIterable(existingAnalyticsIndexes));
+		when(eventIndexes.ensureIndex(any())).thenAnswer(invocation -> {
+			Document keys = invocation.<IndexDefinition>getArgument(0).getIndexKeys();
+			built.add(keys);
+			return builder.apply(keys);
+		});
+
+		existingEventIndexes.add(index("_id_", false, "_id", Sort.Direction.ASC));
+		existingAnalyticsIndexes.add(index("eventType_1_periodStart_1", true,
+				"eventType", Sort.Direction.ASC, "periodStart", Sort.Direction.ASC));
+	}
+
+	@Test
+	void buildsOnlyMissingIndexes() {
+		existingEventIndexes.add(index("timestamp_-1", false, "timestamp", Sort.Direction.DESC));
+		existingEventIndexes.add(index("type_1_timestamp_-1", false,
+				"type", Sort.Direction.ASC, "timestamp", Sort.Direction.DESC));
+
+		StepVerifier.create(config.bootstrapIndexes()).verifyComplete();
+
+		assertEquals(List.of(new Document("source", 1).append("status", 1), new Document("payload.value", 1)), built);
+		assertTrue(config.getStates().values().stream().allMatch(state -> state == MongoIndexConfig.IndexState.READY));
+		assertTrue(config.getFindings().isEmpty());
+	}
+
+	@Test
+	void readinessGoesFromOutOfServiceToUp() {
+		builder = keys -> Mono.just(keys.toJson()).delayElement(Duration.ofSeconds(5));
+
+		StepVerifier.withVirtualTime(config::bootstrapIndexes)
+				.then(() -> {
+					assertEquals(Status.OUT_OF_SERVICE, status());
+					assertTrue(config.getStates().containsValue(MongoIndexConfig.IndexState.BUILDING));
+				})
+				.thenAwait(Duration.ofSeconds(5))
+				.verifyComplete();
+
+		assertEquals(Status.UP, status());
+		assertEquals(4, built.size());
+	}
+
+	@Test
+	void failedCriticalIndexIsDownUntilRetrySucceeds() {
+		AtomicInteger attempts = new AtomicInteger();
+		Document typeTimestamp = new Document("type", 1).append("timestamp", -1);
+		builder = keys -> keys.equals(typeTimestamp) && attempts.getAndIncrement() == 0
+				? Mono.error(new IllegalStateException("build interrotto"))
+				: Mono.just(keys.toJson());
+
+		StepVerifier.withVirtualTime(config::bootstrapIndexes)
+				.then(() -> {
+					assertEquals(Status.DOWN, status());
+					assertTrue(config.isCriticalFailed());
+				})
+				.thenAwait(Duration.ofMinutes(1))
+				.verifyComplete();
+
+		assertEquals(Status.UP, status());
+		assertFalse(config.isCriticalFailed());
+	}
+
+	@Test
+	void nonUniqueRollupIndexBlocksReadiness() {
+		existingAnalyticsIndexes.set(0, index("eventType_1_periodStart_1", false,
+				"eventType", Sort.Direction.ASC, "periodStart", Sort.Direction.ASC));
+
+		StepVerifier.create(config.bootstrapIndexes()).verifyComplete();
+
+		assertEquals(Status.DOWN, status());
+		assertTrue(config.getFindings().stream().anyMatch(finding ->
+				finding.index().equals("eventType_1_periodStart_1") && finding.reason().startsWith("non unico")));
+	}
+
+	@Test
+	void reportsRedundantAndUndeclaredIndexes() {
+		existingEventIndexes.add(index("type_1", false, "type", Sort.Direction.ASC));
+		existingEventIndexes.add(index("status_1", false, "status", Sort.Direction.ASC));
+		existingEventIndexes.add(index("timestamp_-1", false, "timestamp", Sort.Direction.DESC));
+
+		StepVerifier.create(config.bootstrapIndexes()).verifyComplete();
+
+		List<MongoIndexConfig.IndexFinding> findings = config.getFindings();
+		assertTrue(findings.stream().anyMatch(finding -> finding.index().equals("type_1")
+				&& finding.reason().startsWith("prefisso")));
+		assertTrue(findings.stream().anyMatch(finding -> finding.index().equals("status_1")
+				&& finding.reason().startsWith("campo contenuto")));
+		assertTrue(findings.stream().anyMatch(finding -> finding.index().equals("status_1")
+				&& finding.reason().startsWith("non dichiarato")));
+		// L'indice dichiarato su timestamp serve le query per solo intervallo: non è ridondante
+		assertTrue(findings.stream().noneMatch(finding -> finding.index().equals("timestamp_-1")));
+	}
+
+	private Status status() {
+		return readiness.health().block().getStatus();
+	}
+
+	private static IndexInfo index(String name, boolean unique, Object... keysAndDirections) {
+		List<IndexField> fields = new ArrayList<>();
+		for (int i = 0; i < keysAndDirections.length; i += 2) {
+			fields.add(IndexField.create((String) keysAndDirections[i], (Sort.Direction) keysAndDirections[i + 1]));
+		}
+		return new IndexInfo(fields, name, unique, false, null);
+	}
+}
@@ -0,0 +1,85 @@
+package com.analyzer.event_analyzer.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EventMetricsTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final EventMetrics metrics = new EventMetrics(registry);
+
+	@Test
+	void timersAreTaggedByOperationAndOutcome() {
+		StepVerifier.create(metrics.timeRepository("events.save", Mono.just("ok"))).expectNext("ok").verifyComplete();
+		StepVerifier.create(metrics.timeRepository("events.save", Mono.just("ok"))).expectNext("ok").verifyComplete();
+		StepVerifier.create(metrics.timeRepository("events.save", Mono.error(new IllegalStateException())))
+				.verifyError(IllegalStateException.class);
+		StepVerifier.create(metrics.timeCache("get", Flux.range(0, 10)), 0)
+				.thenRequest(1)
+				.expectNext(0)
+				.thenCancel()
+				.verify();
+
+		assertEquals(2, timer(EventMetrics.REPOSITORY_CALLS, "operation", "events.save", "success").count());
+		assertEquals(1, timer(EventMetrics.REPOSITORY_CALLS, "operation", "events.save", "error").count());
+		assertEquals(1, timer(EventMetrics.CACHE_CALLS, "operation", "get", "cancelled").count());
+		// I timer degli esiti mai osservati non vengono registrati
+		assertNull(registry.find(EventMetrics.CACHE_CALLS).tag("outcome", "success").timer());
+	}
+
+	@Test
+	void inFlightGaugeTracksActiveSubscriptions() {
+		StepVerifier.create(metrics.timeAggregation("trends", Mono.never()))
+				.then(() -> assertEquals(1.0, registry.get(EventMetrics.PIPELINE_IN_FLIGHT)
+						.tags("metric", EventMetrics.AGGREGATION_PIPELINES, "name", "trends")
+						.gauge().value()))
+				.thenCancel()
+				.verify();
+
+		assertEquals(0.0, registry.get(EventMetrics.PIPELINE_IN_FLIGHT)
+				.tags("metric", EventMetrics.AGGREGATION_PIPELINES, "name", "trends")
+				.gauge().value());
+	}
+
+	@Test
+	void workloadCallsAreTaggedByWorkload() {
+		StepVerifier.create(metrics.timeWorkload("rollup", "analytics.replace", Mono.just(1))).expectNext(1).verifyComplete();
+		StepVerifier.create(metrics.timeWorkload("report", "analytics.replace", Mono.just(1))).expectNext(1).verifyComplete();
+
+		Timer rollup = registry.get(EventMetrics.WORKLOAD_CALLS)
+				.tags("workload", "rollup", "operation", "analytics.replace", "outcome", "success")
+				.timer();
+		assertEquals(1, rollup.count());
+		assertNotNull(registry.get(EventMetrics.WORKLOAD_IN_FLIGHT)
+				.tags("workload", "report", "operation", "analytics.replace")
+				.gauge());
+		assertNull(registry.find(EventMetrics.REPOSITORY_CALLS).timer());
+	}
+
+	@Test
+	void countsIngestAndCacheLookups() {
+		metrics.recordIngest("login");
+		metrics.recordIngest("login");
+		metrics.recordIngest(null);
+		metrics.recordCacheLookup("recent", true);
+		metrics.recordCacheLookup("recent", false);
+
+		assertEquals(2.0, registry.get(EventMetrics.EVENTS_INGESTED).tag("type", "login").counter().count());
+		assertEquals(1.0, registry.get(EventMetrics.EVENTS_INGESTED).tag("type", "unknown").counter().count());
+		assertEquals(1.0, registry.get(EventMetrics.CACHE_LOOKUPS).tags("cache", "recent", "result", "hit").counter().count());
+		assertEquals(1.0, registry.get(EventMetrics.CACHE_LOOKUPS).tags("cache", "recent", "result", "miss").counter().count());
+		assertEquals(0.5, registry.get(EventMetrics.CACHE_HIT_RATIO).tag("cache", "recent").gauge().value());
+	}
+
+	private Timer timer(String metric, String tagKey, String tagValue, String outcome) {
+		return registry.get(metric).tags(tagKey, tagValue, "outcome", outcome).timer();
+	}
+}
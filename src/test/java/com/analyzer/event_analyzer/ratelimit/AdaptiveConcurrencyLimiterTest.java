@@ -0,0 +1,47 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	private static final long MILLI = 1_000_000L;
+
+	@Test
+	void staysAtMaximumUnderSteadyMixedLatency() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 256);
+		SplittableRandom random = new SplittableRandom(7);
+
+		// Latenze molto disperse ma stazionarie: query veloci e qualche scansione lenta
+		for (int i = 0; i < 20_000; i++) {
+			assertTrue(limiter.tryAcquire());
+			limiter.release(random.nextDouble() < 0.9 ? random.nextLong(1, 5) * MILLI : random.nextLong(50, 500) * MILLI);
+		}
+
+		assertEquals(256, limiter.getLimit());
+	}
+
+	@Test
+	void shrinksWhenLatencyRisesAndRecovers() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 256);
+		for (int i = 0; i < 2_000; i++) {
+			limiter.tryAcquire();
+			limiter.release(2 * MILLI);
+		}
+		for (int i = 0; i < 640; i++) {
+			limiter.tryAcquire();
+			limiter.release(20 * MILLI);
+		}
+		assertTrue(limiter.getLimit() < 64, "limite " + limiter.getLimit());
+
+		for (int i = 0; i < 5_000; i++) {
+			limiter.tryAcquire();
+			limiter.release(2 * MILLI);
+		}
+		assertEquals(256, limiter.getLimit());
+	}
+}
@@ -0,0 +1,65 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+import com.analyzer.event_analyzer.metrics.EventMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitWebFilterTest {
+
+	private final AtomicInteger consumed = new AtomicInteger();
+	private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1);
+
+	@Test
+	void concurrencyRejectionDoesNotConsumeTokens() {
+		RateLimitWebFilter filter = filter((key, spec) -> {
+			consumed.incrementAndGet();
+			return Mono.just(RateLimitDecision.allow());
+		});
+
+		Disposable running = filter.filter(ingest(), exchange -> Mono.never()).subscribe();
+		MockServerWebExchange rejected = ingest();
+		filter.filter(rejected, exchange -> Mono.empty()).block();
+
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+		assertEquals(1, consumed.get());
+
+		running.dispose();
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void rateRejectionReturnsConcurrencyPermit() {
+		RateLimitWebFilter filter = filter((key, spec) -> Mono.just(RateLimitDecision.reject(Duration.ofSeconds(2))));
+
+		MockServerWebExchange rejected = ingest();
+		filter.filter(rejected, exchange -> Mono.empty()).block();
+
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+		assertEquals("2", rejected.getResponse().getHeaders().getFirst("Retry-After"));
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	private RateLimitWebFilter filter(TokenBucketStore store) {
+		Map<EndpointClass, BucketSpec> specs = new EnumMap<>(EndpointClass.class);
+		Map<EndpointClass, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(EndpointClass.class);
+		specs.put(EndpointClass.INGEST, new BucketSpec(10, 1));
+		limiters.put(EndpointClass.INGEST, limiter);
+		return new RateLimitWebFilter(store, specs, limiters, new EventMetrics(new SimpleMeterRegistry()));
+	}
+
+	private static MockServerWebExchange ingest() {
+		return MockServerWebExchange.from(MockServerHttpRequest.post("/api/events"));
+	}
+}
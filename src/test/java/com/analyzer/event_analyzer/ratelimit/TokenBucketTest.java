@@ -0,0 +1,47 @@
+package com.analyzer.event_analyzer.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void allowsBurstUpToCapacityThenRejects() {
+		TokenBucket bucket = new TokenBucket(new BucketSpec(3, 1), 0);
+
+		assertEquals(0, bucket.tryConsume(0));
+		assertEquals(0, bucket.tryConsume(0));
+		assertEquals(0, bucket.tryConsume(0));
+		assertEquals(SECOND, bucket.tryConsume(0));
+	}
+
+	@Test
+	void refillsOverTime() {
+		TokenBucket bucket = new TokenBucket(new BucketSpec(1, 2), 0);
+
+		assertEquals(0, bucket.tryConsume(0));
+		assertTrue(bucket.tryConsume(SECOND / 4) > 0);
+		assertEquals(0, bucket.tryConsume(SECOND / 2));
+	}
+
+	@Test
+	void neverExceedsCapacity() {
+		TokenBucket bucket = new TokenBucket(new BucketSpec(2, 10), 0);
+
+		assertTrue(bucket.isIdle(60 * SECOND));
+		assertEquals(0, bucket.tryConsume(60 * SECOND));
+		assertEquals(0, bucket.tryConsume(60 * SECOND));
+		assertTrue(bucket.tryConsume(60 * SECOND) > 0);
+	}
+
+	@Test
+	void rejectsNonPositiveRefill() {
+		assertThrows(IllegalArgumentException.class, () -> new BucketSpec(10, 0));
+		assertThrows(IllegalArgumentException.class, () -> new BucketSpec(0, 1));
+	}
+}
@@ -0,0 +1,110 @@
+package com.analyzer.event_analyzer.storage;
+
+import com.analyzer.event_analyzer.config.WorkloadMongoTemplates;
+import com.analyzer.event_analyzer.metrics.EventMetrics;
+import com.analyzer.event_analyzer.workload.WorkloadClass;
+import com.analyzer.event_analyzer.workload.WorkloadIsolation;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompactEncodingMigratorTest {
+
+	private final DictionaryFixture fixture = new DictionaryFixture();
+	private final WorkloadIsolation workloads = new WorkloadIsolation(new MockEnvironment(),
+			new EventMetrics(new SimpleMeterRegistry()));
+	// Collezione "events" in memoria, per _id
+	private final Map<Object, Document> events = new LinkedHashMap<>();
+	private CompactEncodingMigrator migrator;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		MongoCollection<Document> collection = mock(MongoCollection.class);
+		// Come il filtro exists("type"): solo i documenti ancora in formato esteso
+		when(collection.find(any(Bson.class))).thenAnswer(invocation -> DictionaryFixture.publisher(
+				events.values().stream().filter(document -> document.containsKey("type")).toList()));
+		when(collection.bulkWrite(anyList())).thenAnswer(invocation -> Mono.fromSupplier(() ->
+				replace(invocation.<List<WriteModel<Document>>>getArgument(0))));
+
+		ReactiveMongoTemplate template = mock(ReactiveMongoTemplate.class);
+		when(template.getCollection("events")).thenReturn(Mono.just(collection));
+		when(template.getConverter()).thenReturn(DictionaryFixture.converter(fixture.dictionary));
+		WorkloadMongoTemplates templates = mock(WorkloadMongoTemplates.class);
+		when(templates.forWorkload(WorkloadClass.ROLLUP)).thenReturn(template);
+
+		migrator = new CompactEncodingMigrator(templates, workloads, fixture.dictionary);
+	}
+
+	@AfterEach
+	void shutdown() {
+		workloads.shutdown();
+	}
+
+	@Test
+	void migrationIsIdempotent() {
+		legacy("login", "web");
+		legacy("logout", "web");
+		ObjectId compactId = new ObjectId();
+		Document compact = new Document("_id", compactId).append("t", 1).append("s", 1);
+		events.put(compactId, compact);
+
+		StepVerifier.create(migrator.migrate(10))
+				.expectNext(new CompactEncodingMigrator.MigrationResult(2, 1))
+				.verifyComplete();
+
+		Map<Object, Document> migrated = new LinkedHashMap<>(events);
+		migrated.values().forEach(document -> assertFalse(document.containsKey("type")));
+		assertEquals(compact, events.get(compactId));
+
+		// Una seconda esecuzione non trova nulla da convertire e non modifica i documenti
+		StepVerifier.create(migrator.migrate(10))
+				.expectNext(new CompactEncodingMigrator.MigrationResult(0, 0))
+				.verifyComplete();
+		assertEquals(migrated, events);
+		assertEquals(3, fixture.dictionary.size());
+	}
+
+	private void legacy(String type, String source) {
+		ObjectId id = new ObjectId();
+		events.put(id, new Document("_id", id)
+				.append("type", type)
+				.append("source", source)
+				.append("timestamp", new Date())
+				.append("status", "RECEIVED"));
+	}
+
+	private BulkWriteResult replace(List<WriteModel<Document>> batch) {
+		for (WriteModel<Document> model : batch) {
+			Document replacement = ((ReplaceOneModel<Document>) model).getReplacement();
+			events.put(replacement.get("_id"), replacement);
+		}
+		BulkWriteResult result = mock(BulkWriteResult.class);
+		when(result.getModifiedCount()).thenReturn(batch.size());
+		return result;
+	}
+}
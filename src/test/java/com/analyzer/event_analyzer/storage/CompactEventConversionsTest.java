@@ -0,0 +1,105 @@
+package com.analyzer.event_analyzer.storage;
+
+import com.analyzer.event_analyzer.model.Event;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class CompactEventConversionsTest {
+
+	private final DictionaryFixture fixture = new DictionaryFixture();
+	private final MappingMongoConverter converter = DictionaryFixture.converter(fixture.dictionary);
+
+	CompactEventConversionsTest() {
+		fixture.dictionary.remember(EventDictionary.TYPE, "login", 1);
+		fixture.dictionary.remember(EventDictionary.SOURCE, "web", 2);
+		fixture.dictionary.remember(EventDictionary.PAYLOAD_KEY, "browser", 3);
+	}
+
+	@Test
+	void writesCompactDocumentAndReadsItBack() {
+		Event event = event();
+
+		Document stored = new Document();
+		converter.write(event, stored);
+
+		assertEquals(1, stored.get("t"));
+		assertEquals(2, stored.get("s"));
+		assertEquals(3, stored.get("st"));
+		assertEquals(Date.from(event.getTimestamp()), stored.get("ts"));
+		assertEquals(new Document("value", 12.5).append("#3", "firefox"), stored.get("p"));
+		assertFalse(stored.containsKey("_class"));
+
+		assertEquals(event, converter.read(Event.class, stored));
+	}
+
+	@Test
+	void queryValuesAreEncoded() {
+		Query query = Query.query(where("type").is("login")
+				.and("source").is("web")
+				.and("status").is(Event.EventStatus.PROCESSED));
+
+		assertEquals(new Document("t", 1).append("s", 2).append("st", 3), mapped(query));
+	}
+
+	@Test
+	void unregisteredQueryValueStaysPlain() {
+		// Un valore mai registrato non compare in nessun documento codificato
+		assertEquals(new Document("t", "unknown"), mapped(Query.query(where("type").is("unknown"))));
+	}
+
+	@Test
+	void legacyDocumentsAreStillReadable() {
+		Document legacy = new Document("_id", new ObjectId())
+				.append("t", "login")
+				.append("st", "FAILED");
+
+		Event event = converter.read(Event.class, legacy);
+
+		assertEquals("login", event.getType());
+		assertEquals(Event.EventStatus.FAILED, event.getStatus());
+	}
+
+	@Test
+	void statusCodesAreStableAndUnknownCodesRejected() {
+		assertEquals(1, CompactEventConversions.statusCode(Event.EventStatus.RECEIVED));
+		assertEquals(4, CompactEventConversions.statusCode(Event.EventStatus.FAILED));
+		for (Event.EventStatus status : Event.EventStatus.values()) {
+			assertEquals(status, CompactEventConversions.statusOf(CompactEventConversions.statusCode(status)));
+		}
+		assertThrows(IllegalArgumentException.class, () -> CompactEventConversions.statusOf(0));
+	}
+
+	private Document mapped(Query query) {
+		return new QueryMapper(converter).getMappedObject(query.getQueryObject(),
+				converter.getMappingContext().getPersistentEntity(Event.class));
+	}
+
+	private static Event event() {
+		Map<String, Object> payload = new LinkedHashMap<>();
+		payload.put("value", 12.5);
+		payload.put("browser", "firefox");
+		Event event = new Event();
+		event.setId(new ObjectId().toHexString());
+		event.setType("login");
+		event.setSource("web");
+		event.setUserId("user-1");
+		event.setTimestamp(Instant.parse("2025-01-01T10:15:30.123Z"));
+		event.setPayload(payload);
+		event.setStatus(Event.EventStatus.PROCESSED);
+		return event;
+	}
+}
@@ -0,0 +1,65 @@
+package com.analyzer.event_analyzer.storage;
+
+import com.analyzer.event_analyzer.model.Event;
+import com.analyzer.event_analyzer.model.EventAnalytics;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypeBasedAggregationOperationContext;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class CompactFieldNamingStrategyTest {
+
+	private static final Instant START = Instant.parse("2025-01-01T10:00:00Z");
+
+	private final MappingMongoConverter converter = DictionaryFixture.converter(null);
+	private final QueryMapper queryMapper = new QueryMapper(converter);
+
+	@Test
+	void queryFieldsUseShortNames() {
+		Query query = Query.query(where("type").is("login")
+				.and("timestamp").gte(START)
+				.and("payload.value").gt(5));
+
+		Document mapped = queryMapper.getMappedObject(query.getQueryObject(),
+				converter.getMappingContext().getPersistentEntity(Event.class));
+
+		assertEquals(new Document("t", "login")
+				.append("ts", new Document("$gte", Date.from(START)))
+				.append("p.value", new Document("$gt", 5)), mapped);
+	}
+
+	@Test
+	void aggregationFieldsUseShortNames() {
+		TypedAggregation<Event> aggregation = Aggregation.newAggregation(Event.class,
+				Aggregation.match(where("source").is("web")),
+				Aggregation.group("type").count().as("count"));
+
+		List<Document> pipeline = aggregation.toPipeline(new TypeBasedAggregationOperationContext(
+				Event.class, converter.getMappingContext(), queryMapper));
+
+		assertEquals(new Document("$match", new Document("s", "web")), pipeline.get(0));
+		assertEquals(new Document("$group", new Document("_id", "$t").append("count", new Document("$sum", 1))),
+				pipeline.get(1));
+	}
+
+	@Test
+	void otherEntitiesKeepPropertyNames() {
+		Query query = Query.query(where("eventType").is("login").and("periodStart").is(START));
+
+		Document mapped = queryMapper.getMappedObject(query.getQueryObject(),
+				converter.getMappingContext().getPersistentEntity(EventAnalytics.class));
+
+		assertEquals(new Document("eventType", "login").append("periodStart", Date.from(START)), mapped);
+	}
+}
@@ -0,0 +1,122 @@
+package com.analyzer.event_analyzer.storage;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.reactivestreams.Subscriber;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dizionario eventi attivo su una collezione "event_dictionary" in memoria: le voci
+ * con codice sono restituite da find, le sequenze e gli upsert di allocate sono simulati
+ */
+final class DictionaryFixture {
+
+	private static final CodecRegistry REGISTRY = MongoClientSettings.getDefaultCodecRegistry();
+
+	final List<Document> entries = new CopyOnWriteArrayList<>();
+	final EventDictionary dictionary;
+	private final Map<String, Integer> sequences = new ConcurrentHashMap<>();
+
+	@SuppressWarnings("unchecked")
+	DictionaryFixture() {
+		ReactiveMongoDatabaseFactory factory = mock(ReactiveMongoDatabaseFactory.class);
+		MongoDatabase database = mock(MongoDatabase.class);
+		MongoCollection<Document> collection = mock(MongoCollection.class);
+		when(factory.getMongoDatabase()).thenReturn(Mono.just(database));
+		when(database.getCollection(EventDictionary.COLLECTION)).thenReturn(collection);
+		when(collection.find(any(Bson.class))).thenAnswer(invocation -> publisher(entries));
+		when(collection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+				.thenAnswer(invocation -> Mono.fromSupplier(() ->
+						upsert(invocation.getArgument(0), invocation.getArgument(1))));
+
+		dictionary = new EventDictionary(factory);
+		ReflectionTestUtils.setField(dictionary, "enabled", true);
+	}
+
+	void add(String namespace, String value, int code) {
+		entries.add(new Document("_id", namespace + ":" + value)
+				.append("ns", namespace)
+				.append("value", value)
+				.append("code", code));
+	}
+
+	/**
+	 * Converter con la stessa configurazione di MongoConfig a codifica compatta attiva;
+	 * senza dizionario solo i nomi di campo brevi
+	 */
+	static MappingMongoConverter converter(EventDictionary dictionary) {
+		MongoCustomConversions conversions = MongoCustomConversions.create(adapter -> {
+			if (dictionary != null) {
+				CompactEventConversions.configure(adapter, new StaticListableBeanFactory(
+						Map.of("eventDictionary", dictionary)).getBeanProvider(EventDictionary.class));
+			}
+		});
+		MongoMappingContext mappingContext = new MongoMappingContext();
+		mappingContext.setFieldNamingStrategy(new CompactFieldNamingStrategy());
+		mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+		mappingContext.afterPropertiesSet();
+
+		MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+		converter.setCustomConversions(conversions);
+		converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+		converter.afterPropertiesSet();
+		return converter;
+	}
+
+	@SuppressWarnings("unchecked")
+	static FindPublisher<Document> publisher(Collection<Document> documents) {
+		FindPublisher<Document> publisher = mock(FindPublisher.class);
+		when(publisher.batchSize(anyInt())).thenReturn(publisher);
+		doAnswer(invocation -> {
+			Flux.fromIterable(List.copyOf(documents)).subscribe(invocation.<Subscriber<? super Document>>getArgument(0));
+			return null;
+		}).when(publisher).subscribe(any());
+		return publisher;
+	}
+
+	// Sequenza per namespace con $inc, voce creata con $setOnInsert solo se assente
+	private synchronized Document upsert(Bson filter, Bson update) {
+		String id = filter.toBsonDocument(Document.class, REGISTRY).getString("_id").getValue();
+		if (id.startsWith("seq:")) {
+			return new Document("_id", id).append("next", sequences.merge(id, 1, Integer::sum));
+		}
+		for (Document entry : entries) {
+			if (id.equals(entry.get("_id"))) {
+				return entry;
+			}
+		}
+		BsonDocument onInsert = update.toBsonDocument(Document.class, REGISTRY).getDocument("$setOnInsert");
+		Document entry = new Document("_id", id);
+		entry.putAll(Document.parse(onInsert.toJson()));
+		entries.add(entry);
+		return entry;
+	}
+}
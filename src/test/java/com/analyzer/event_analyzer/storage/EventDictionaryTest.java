@@ -0,0 +1,108 @@
+package com.analyzer.event_analyzer.storage;
+
+import com.analyzer.event_analyzer.model.Event;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventDictionaryTest {
+
+	private final DictionaryFixture fixture = new DictionaryFixture();
+	private final EventDictionary dictionary = fixture.dictionary;
+
+	@Test
+	void registerAssignsCodesPerNamespace() {
+		Map<String, Object> payload = new LinkedHashMap<>();
+		payload.put("value", 12.5);
+		payload.put("browser", "firefox");
+		Event event = new Event();
+		event.setType("login");
+		event.setSource("web");
+		event.setPayload(payload);
+
+		StepVerifier.create(dictionary.register(event)).verifyComplete();
+
+		// Ogni namespace ha la propria sequenza
+		assertEquals(1, dictionary.encode(EventDictionary.TYPE, "login"));
+		assertEquals(1, dictionary.encode(EventDictionary.SOURCE, "web"));
+		assertEquals("#1", dictionary.encodePayloadKey("browser"));
+		assertEquals("value", dictionary.encodePayloadKey("value"));
+		assertEquals("login", dictionary.decode(EventDictionary.TYPE, 1));
+		assertEquals("browser", dictionary.decodePayloadKey("#1"));
+		assertEquals(3, dictionary.size());
+
+		// Valori già noti: nessuna nuova allocazione
+		StepVerifier.create(dictionary.register(event)).verifyComplete();
+		assertEquals(3, fixture.entries.size());
+	}
+
+	@Test
+	void codeRegisteredByAnotherNodeWins() {
+		fixture.add(EventDictionary.TYPE, "login", 7);
+		Event event = new Event();
+		event.setType("login");
+
+		StepVerifier.create(dictionary.register(event)).verifyComplete();
+
+		assertEquals(7, dictionary.encode(EventDictionary.TYPE, "login"));
+		assertEquals("login", dictionary.decode(EventDictionary.TYPE, 7));
+	}
+
+	@Test
+	void unknownCodeFailsWithoutBlockingAndReloads() {
+		fixture.add(EventDictionary.TYPE, "login", 3);
+
+		// Su un thread non bloccante la conversione fallisce subito invece di attendere MongoDB
+		StepVerifier.create(Mono.fromCallable(() -> dictionary.decode(EventDictionary.TYPE, 3))
+						.subscribeOn(Schedulers.parallel()))
+				.expectError(EventDictionary.UnknownCodeException.class)
+				.verify();
+
+		// Il ricaricamento in background ha portato il codice in memoria
+		assertEquals("login", dictionary.decode(EventDictionary.TYPE, 3));
+		assertEquals("plain", dictionary.decode(EventDictionary.TYPE, "plain"));
+	}
+
+	@Test
+	void readFailingOnUnknownCodeIsRepeatedAfterReload() {
+		fixture.add(EventDictionary.TYPE, "login", 3);
+		fixture.add(EventDictionary.TYPE, "logout", 4);
+		// Ricaricamento in background appena eseguito: solo il retry può caricare i codici
+		((AtomicLong) ReflectionTestUtils.getField(dictionary, "lastReload")).set(System.currentTimeMillis());
+
+		AtomicInteger attempts = new AtomicInteger();
+		Flux<Object> read = Flux.defer(() -> {
+			attempts.incrementAndGet();
+			return Flux.just(3, 4).map(code -> dictionary.decode(EventDictionary.TYPE, code));
+		});
+
+		StepVerifier.create(dictionary.retryOnUnknownCode(read))
+				.expectNext("login", "logout")
+				.verifyComplete();
+		assertEquals(2, attempts.get());
+		assertTrue(EventDictionary.isUnknownCode(new IllegalStateException("mapping",
+				new EventDictionary.UnknownCodeException(EventDictionary.TYPE, 1))));
+	}
+
+	@Test
+	void unknownCodeOutlivingRetriesIsReported() {
+		((AtomicLong) ReflectionTestUtils.getField(dictionary, "lastReload")).set(System.currentTimeMillis());
+
+		StepVerifier.create(dictionary.retryOnUnknownCode(Mono.fromCallable(() -> dictionary.decode(EventDictionary.TYPE, 9))))
+				.verifyErrorMatches(EventDictionary::isUnknownCode);
+		assertThrows(EventDictionary.UnknownCodeException.class,
+				() -> dictionary.decodePayloadKey("#9"));
+	}
+}
@@ -0,0 +1,70 @@
+package com.analyzer.event_analyzer.workload;
+
+import com.analyzer.event_analyzer.metrics.EventMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WorkloadIsolationTest {
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+	private final WorkloadIsolation workloads = new WorkloadIsolation(new MockEnvironment()
+			.withProperty("app.workload.rollup.max-concurrency", "1")
+			.withProperty("app.workload.rollup.max-queued", "0"), new EventMetrics(registry));
+
+	@AfterEach
+	void shutdown() {
+		workloads.shutdown();
+	}
+
+	@Test
+	void supplierThrowingReleasesPermit() {
+		StepVerifier.create(workloads.run(WorkloadClass.ROLLUP, () -> {
+					throw new IllegalStateException("boom");
+				}))
+				.verifyError(IllegalStateException.class);
+		StepVerifier.create(workloads.runMany(WorkloadClass.ROLLUP, () -> {
+					throw new IllegalStateException("boom");
+				}))
+				.verifyError(IllegalStateException.class);
+
+		assertEquals(0.0, active());
+		StepVerifier.create(workloads.run(WorkloadClass.ROLLUP, () -> Mono.just(1)))
+				.expectNext(1)
+				.verifyComplete();
+	}
+
+	@Test
+	void permitIsReleasedOnCancelAndError() {
+		StepVerifier.create(workloads.runMany(WorkloadClass.ROLLUP, () -> Flux.never()))
+				.then(() -> assertEquals(1.0, active()))
+				.thenCancel()
+				.verify();
+		StepVerifier.create(workloads.run(WorkloadClass.ROLLUP, () -> Mono.error(new IllegalStateException())))
+				.verifyError(IllegalStateException.class);
+
+		assertEquals(0.0, active());
+	}
+
+	@Test
+	void rejectsWhenQueueIsFull() {
+		StepVerifier.create(workloads.run(WorkloadClass.ROLLUP, Mono::never))
+				.then(() -> StepVerifier.create(workloads.run(WorkloadClass.ROLLUP, () -> Mono.just(1)))
+						.verifyError(WorkloadRejectedException.class))
+				.thenCancel()
+				.verify();
+
+		assertEquals(1.0, registry.get(WorkloadIsolation.REJECTED).tag("workload", "rollup").counter().count());
+	}
+
+	private double active() {
+		return registry.get("eventanalyzer.workload.active").tag("workload", "rollup").gauge().value();
+	}
+}
@@ -0,0 +1,85 @@
+package com.analyzer.event_analyzer.workload;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkloadLimiterTest {
+
+	@Test
+	void queuesUpToCapacityThenRejects() {
+		WorkloadLimiter limiter = new WorkloadLimiter(WorkloadClass.REPORT, () -> 1, 1, nanos -> { });
+
+		AtomicBoolean first = new AtomicBoolean();
+		AtomicBoolean second = new AtomicBoolean();
+		AtomicReference<Throwable> third = new AtomicReference<>();
+		limiter.acquire().subscribe(null, null, () -> first.set(true));
+		limiter.acquire().subscribe(null, null, () -> second.set(true));
+		limiter.acquire().subscribe(null, third::set);
+
+		assertTrue(first.get());
+		assertFalse(second.get());
+		assertInstanceOf(WorkloadRejectedException.class, third.get());
+		assertEquals(1, limiter.getQueued());
+
+		limiter.release();
+		assertTrue(second.get());
+		assertEquals(1, limiter.getActive());
+		assertEquals(0, limiter.getQueued());
+	}
+
+	@Test
+	void cancelledWaiterDoesNotHoldPermit() {
+		WorkloadLimiter limiter = new WorkloadLimiter(WorkloadClass.ROLLUP, () -> 1, 2, nanos -> { });
+
+		limiter.acquire().subscribe();
+		Disposable cancelled = limiter.acquire().subscribe();
+		AtomicBoolean waiting = new AtomicBoolean();
+		limiter.acquire().subscribe(null, null, () -> waiting.set(true));
+
+		cancelled.dispose();
+		assertEquals(1, limiter.getQueued());
+
+		limiter.release();
+		assertTrue(waiting.get());
+		assertEquals(1, limiter.getActive());
+	}
+
+	@Test
+	void permitGrantedButNotDeliveredIsReleasedOnCancel() {
+		WorkloadLimiter limiter = new WorkloadLimiter(WorkloadClass.ROLLUP, () -> 1, 1, nanos -> { });
+
+		// Senza domanda il permesso è concesso ma resta nel sink fino alla cancellazione
+		StepVerifier.create(limiter.acquire(), 0)
+				.thenCancel()
+				.verify();
+
+		assertEquals(0, limiter.getActive());
+		AtomicBoolean next = new AtomicBoolean();
+		limiter.acquire().subscribe(null, null, () -> next.set(true));
+		assertTrue(next.get());
+	}
+
+	@Test
+	void loweredLimitAppliesToNewAcquisitions() {
+		AtomicReference<Integer> limit = new AtomicReference<>(2);
+		WorkloadLimiter limiter = new WorkloadLimiter(WorkloadClass.REPORT, limit::get, 4, nanos -> { });
+
+		limiter.acquire().subscribe();
+		limit.set(1);
+		AtomicBoolean second = new AtomicBoolean();
+		limiter.acquire().subscribe(null, null, () -> second.set(true));
+
+		assertFalse(second.get());
+		limiter.release();
+		assertTrue(second.get());
+	}
+}